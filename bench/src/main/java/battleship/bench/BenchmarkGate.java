@@ -0,0 +1,160 @@
+package battleship.bench;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Runs the benchmarks with allocation profiling and compares them against a recorded baseline.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar battleship.bench.BenchmarkGate [baseline] [--update] [regex]}.
+ * Without a baseline file, or with {@code --update}, the results are recorded as the new baseline. Otherwise the
+ * process exits with status 1 if a benchmark got slower than the time tolerance or allocates more bytes per
+ * operation (gc.alloc.rate.norm) than the allocation tolerance.
+ */
+public class BenchmarkGate {
+
+    /* Allowed slowdown, relative to the baseline score. */
+    private static final double TIME_TOLERANCE = 0.10;
+
+    /* Allowed growth of the bytes allocated per operation, absolute and relative to the baseline. */
+    private static final double ALLOC_TOLERANCE_BYTES = 8;
+    private static final double ALLOC_TOLERANCE = 0.05;
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Path baselineFile = Paths.get("baseline.properties");
+        boolean update = false;
+        String include = BenchmarkGate.class.getPackageName() + ".*Benchmark";
+        for (String arg : args) {
+            if (arg.equals("--update")) {
+                update = true;
+            } else if (arg.endsWith(".properties")) {
+                baselineFile = Paths.get(arg);
+            } else {
+                include = arg;
+            }
+        }
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        if (update || !Files.exists(baselineFile)) {
+            record(results, baselineFile);
+            System.out.println("Baseline recorded in " + baselineFile);
+            return;
+        }
+
+        Properties baseline = new Properties();
+        try (Reader reader = Files.newBufferedReader(baselineFile)) {
+            baseline.load(reader);
+        }
+
+        int regressions = 0;
+        for (RunResult result : results) {
+            regressions += compare(result, baseline);
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " regression(s) against " + baselineFile);
+            System.exit(1);
+        }
+        System.out.println("No regression against " + baselineFile);
+    }
+
+    private static int compare(RunResult result, Properties baseline) {
+        String name = keyOf(result);
+        String baselineScore = baseline.getProperty(name + ".score");
+        if (baselineScore == null) {
+            System.out.println("NEW   " + name);
+            return 0;
+        }
+
+        int regressions = 0;
+        double expected = Double.parseDouble(baselineScore);
+        double actual = result.getPrimaryResult().getScore();
+        boolean higherIsBetter = result.getParams().getMode() == Mode.Throughput;
+        double change = higherIsBetter ? (expected - actual) / expected : (actual - expected) / expected;
+        if (change > TIME_TOLERANCE) {
+            System.out.printf("SLOW  %s: %.3f -> %.3f %s%n", name, expected, actual,
+                    result.getPrimaryResult().getScoreUnit());
+            regressions++;
+        }
+
+        String baselineAlloc = baseline.getProperty(name + ".alloc");
+        double alloc = allocPerOp(result);
+        if (baselineAlloc != null && !Double.isNaN(alloc)) {
+            double expectedAlloc = Double.parseDouble(baselineAlloc);
+            if (alloc > expectedAlloc + Math.max(ALLOC_TOLERANCE_BYTES, expectedAlloc * ALLOC_TOLERANCE)) {
+                System.out.printf("ALLOC %s: %.1f -> %.1f B/op%n", name, expectedAlloc, alloc);
+                regressions++;
+            }
+        }
+
+        if (regressions == 0) {
+            System.out.println("OK    " + name);
+        }
+        return regressions;
+    }
+
+    private static void record(Collection<RunResult> results, Path baselineFile) throws IOException {
+        Properties baseline = new Properties();
+        for (RunResult result : results) {
+            String name = keyOf(result);
+            baseline.setProperty(name + ".score", String.valueOf(result.getPrimaryResult().getScore()));
+            double alloc = allocPerOp(result);
+            if (!Double.isNaN(alloc)) {
+                baseline.setProperty(name + ".alloc", String.valueOf(alloc));
+            }
+        }
+        try (Writer writer = Files.newBufferedWriter(baselineFile)) {
+            baseline.store(writer, "Battleship benchmark baseline");
+        }
+    }
+
+    /**
+     * Get the name a result is recorded under: the benchmark, followed by its parameter values if it has any, such
+     * as "battleship.bench.HeatmapBenchmark.accumulate:kernel=vector", so each variant has its own baseline.
+     */
+    private static String keyOf(RunResult result) {
+        BenchmarkParams params = result.getParams();
+        List<String> keys = new ArrayList<>(params.getParamsKeys());
+        if (keys.isEmpty()) {
+            return params.getBenchmark();
+        }
+        Collections.sort(keys);
+        StringBuilder name = new StringBuilder(params.getBenchmark());
+        for (int i = 0; i < keys.size(); i++) {
+            name.append(i == 0 ? ':' : ',').append(keys.get(i)).append('=').append(params.getParam(keys.get(i)));
+        }
+        return name.toString();
+    }
+
+    /**
+     * Get the bytes allocated per operation reported by the GC profiler, or NaN if it is missing.
+     */
+    private static double allocPerOp(RunResult result) {
+        Result<?> alloc = result.getSecondaryResults().get("gc.alloc.rate.norm");
+        return alloc == null ? Double.NaN : alloc.getScore();
+    }
+}
@@ -0,0 +1,61 @@
+package battleship.bench;
+
+import battleship.data.Coordinate;
+import battleship.data.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and validation of the coordinates typed by the players, such as A1 or J10.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CoordinateBenchmark {
+
+    /* A mix of valid coordinates and a few invalid ones, walked in a cycle. */
+    private static final String[] CORDS = {
+            "A1", "B2", "C3", "D4", "E5", "F6", "G7", "H8", "I9", "J10",
+            "A10", "J1", "E10", "K1", "A0", "A11", "a5", "B", "C100", "H3"
+    };
+
+    private int next;
+
+    private String nextCord() {
+        String cord = CORDS[next];
+        next = next + 1 == CORDS.length ? 0 : next + 1;
+        return cord;
+    }
+
+    @Benchmark
+    public boolean isValidCoordinate() {
+        return Player.isValidCoordinate(nextCord());
+    }
+
+    @Benchmark
+    public int extractRowIndex() {
+        return Player.extractRowIndex(nextCord().charAt(0));
+    }
+
+    @Benchmark
+    public int extractColIndex() {
+        return Player.extractColIndex(nextCord().substring(1));
+    }
+
+    @Benchmark
+    public int parseIndex() {
+        return Coordinate.parseIndex(nextCord());
+    }
+}
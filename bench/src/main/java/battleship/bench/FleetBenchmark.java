@@ -0,0 +1,102 @@
+package battleship.bench;
+
+import battleship.data.Battleship;
+import battleship.data.Board;
+import battleship.data.PlacementResult;
+import battleship.data.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Placement validation and sink checks on a field holding the standard fleet.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FleetBenchmark {
+
+    /* The coordinates of the standard fleet, in the order the ships are placed. */
+    static final String[][] FLEET = {{"A1", "A5"}, {"C1", "F1"}, {"J8", "J10"}, {"E5", "G5"}, {"H9", "H10"}};
+
+    private Player player;
+
+    /* A ship that is not placed, to validate placements against the full field. */
+    private Battleship spare;
+
+    /* A ship with some of its cells hit, and a sunk one. */
+    private Battleship damaged, sunk;
+
+    @Setup
+    public void setUp() {
+        player = placeFleet();
+        spare = new Battleship("Destroyer", 2);
+
+        damaged = player.getBattleships().get(0);
+        sunk = player.getBattleships().get(4);
+        Player opponent = new Player("opponent");
+        opponent.fireAt(player, 0);
+        opponent.fireAt(player, 1);
+        opponent.fireAt(player, 78);
+        opponent.fireAt(player, 79);
+    }
+
+    static Player placeFleet() {
+        Player player = new Player("player");
+        for (int i = 0; i < FLEET.length; i++) {
+            player.placeShip(player.getBattleships().get(i), FLEET[i][0], FLEET[i][1]);
+        }
+        return player;
+    }
+
+    @Benchmark
+    public boolean isSunkDamaged() {
+        return Battleship.isSunk(player.getBoard(), damaged);
+    }
+
+    @Benchmark
+    public boolean isSunkSunk() {
+        return Battleship.isSunk(player.getBoard(), sunk);
+    }
+
+    /* The validation that getCoordinatesOf ran for each typed placement, rejected because it touches a ship. */
+    @Benchmark
+    public PlacementResult validateTooClose() {
+        return player.placeShip(spare, "B1", "B2");
+    }
+
+    /* Every head and orientation of a destroyer checked against the full field, as the fleet generators probe it.
+     * Returns the number of legal placements. */
+    @Benchmark
+    public int checkAllPlacements() {
+        Board board = player.getBoard();
+        int legal = 0;
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            if (board.check(cell, 2, false) == PlacementResult.PLACED) {
+                legal++;
+            }
+            if (board.check(cell, 2, true) == PlacementResult.PLACED) {
+                legal++;
+            }
+        }
+        return legal;
+    }
+
+    /* A full manual placement of the standard fleet on an empty field. */
+    @Benchmark
+    public Player placeFleetByCoordinates() {
+        return placeFleet();
+    }
+}
@@ -0,0 +1,78 @@
+package battleship.bench;
+
+import battleship.ai.ProbabilityShooter;
+import battleship.data.GameConfig;
+import battleship.sim.Bot;
+import battleship.sim.FleetGenerator;
+import battleship.sim.GameContext;
+import battleship.sim.HuntTargetShooter;
+import battleship.sim.Match;
+import battleship.sim.RandomShooter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole headless games between bots, including the fleet placement, in games per second. The pooled games reuse
+ * the players and strategies of a {@link GameContext}, run with {@code -prof gc} to compare their allocation rate.
+ * The Salvo games resolve each turn's shots as one batch.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+
+    private Bot random, huntTarget, probability;
+
+    private GameContext pooled;
+
+    private SplittableRandom rnd;
+
+    @Setup
+    public void setUp() {
+        FleetGenerator fleets = new FleetGenerator();
+        random = new Bot("random", RandomShooter::new, fleets);
+        huntTarget = new Bot("hunt-target", HuntTargetShooter::new, fleets);
+        probability = new Bot("probability", ProbabilityShooter::new, fleets);
+        pooled = new GameContext(probability, huntTarget, GameConfig.STANDARD);
+        rnd = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public int randomVsRandom() {
+        return Match.play(random, random, rnd);
+    }
+
+    @Benchmark
+    public int huntTargetVsHuntTarget() {
+        return Match.play(huntTarget, huntTarget, rnd);
+    }
+
+    @Benchmark
+    public int probabilityVsHuntTarget() {
+        return Match.play(probability, huntTarget, rnd);
+    }
+
+    @Benchmark
+    public int probabilityVsHuntTargetPooled() {
+        return Match.play(pooled, false, rnd, null);
+    }
+
+    @Benchmark
+    public int probabilityVsHuntTargetSalvo() {
+        return Match.playSalvo(pooled, false, rnd);
+    }
+}
@@ -0,0 +1,62 @@
+package battleship.bench;
+
+import battleship.ai.HeatmapKernel;
+import battleship.data.Board;
+import battleship.data.ShipPlacements;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hunt mode heatmap of the standard fleet on an empty board, summed by the scalar kernel and by the Vector API
+ * kernel. Needs JDK 17 or later, where the benchmarks are built with the Vector API kernel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class HeatmapBenchmark {
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    private HeatmapKernel heatmap;
+
+    /* The cover counts of the sizes of the standard fleet, 5, 4, 3 and 2, and the ships of each size. */
+    private final int[][] planes = new int[4][Board.CELLS];
+    private final int[] weights = {1, 1, 2, 1};
+
+    private final int[] heat = new int[Board.CELLS];
+
+    @Setup
+    public void setUp() {
+        heatmap = kernel.equals("vector") ? HeatmapKernel.vector() : HeatmapKernel.scalar();
+        if (heatmap == null) {
+            throw new IllegalStateException("The Vector API kernel is not available");
+        }
+        for (int i = 0; i < planes.length; i++) {
+            ShipPlacements placements = ShipPlacements.ofSize(5 - i);
+            for (int cell = 0; cell < Board.CELLS; cell++) {
+                planes[i][cell] = placements.crossing[cell].length;
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] accumulate() {
+        heatmap.accumulate(planes, weights, planes.length, heat, Board.CELLS);
+        return heat;
+    }
+}
@@ -0,0 +1,111 @@
+package battleship.bench;
+
+import battleship.data.GameConfig;
+import battleship.record.GameRecord;
+import battleship.record.RecordReader;
+import battleship.record.RecordWriter;
+import battleship.record.Replay;
+import battleship.sim.Bot;
+import battleship.sim.FleetGenerator;
+import battleship.sim.HuntTargetShooter;
+import battleship.sim.Match;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Encoding a game record, and scanning and replaying a segment of recorded hunt-target games.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecordBenchmark {
+
+    /* Number of games in the scanned segment. */
+    private static final int GAMES = 10_000;
+
+    private GameRecord record;
+    private ByteBuffer buffer;
+
+    private Path directory;
+    private RecordReader reader;
+
+    @Setup
+    public void setUp() throws IOException {
+        Bot bot = new Bot("hunt-target", HuntTargetShooter::new, new FleetGenerator());
+        SplittableRandom random = new SplittableRandom(42);
+        record = new GameRecord();
+        Match.play(bot, bot, GameConfig.STANDARD, random, record);
+        buffer = ByteBuffer.allocate(record.encodedLength());
+
+        directory = Files.createTempDirectory("records");
+        try (RecordWriter writer = new RecordWriter(directory)) {
+            for (int game = 0; game < GAMES; game++) {
+                GameRecord played = new GameRecord();
+                Match.play(bot, bot, GameConfig.STANDARD, random, played);
+                writer.append(played);
+            }
+        }
+        reader = new RecordReader(directory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        buffer.clear();
+        record.encode(buffer);
+        return buffer;
+    }
+
+    /**
+     * Read every shot of the segment, per game.
+     */
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public long scan() {
+        long[] sum = new long[1];
+        reader.scan(view -> {
+            for (int shot = 0; shot < view.getShotCount(); shot++) {
+                sum[0] += view.shotAt(shot);
+            }
+        });
+        return sum[0];
+    }
+
+    /**
+     * Replay every game of the segment through the engine, per game.
+     */
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public long replay() {
+        return reader.scan(Replay::replay);
+    }
+}
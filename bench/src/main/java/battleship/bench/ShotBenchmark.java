@@ -0,0 +1,91 @@
+package battleship.bench;
+
+import battleship.GameConsole;
+import battleship.data.Player;
+import battleship.data.ShotResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single shot, both through the headless engine and through the full console turn that reads the target,
+ * prints both fields and prints the report. The shot always lands on an already missed cell so the state does
+ * not change between invocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShotBenchmark {
+
+    /* J1 is empty in the benchmark fleet. */
+    private static final int TARGET = 90;
+
+    private Player player, opponent;
+
+    private GameConsole console;
+
+    @Setup
+    public void setUp() {
+        player = FleetBenchmark.placeFleet();
+        opponent = FleetBenchmark.placeFleet();
+        player.fireAt(opponent, TARGET);
+
+        Scanner input = new Scanner(new RepeatingInputStream("J1\n".getBytes(StandardCharsets.US_ASCII)));
+        console = new GameConsole(input, new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Benchmark
+    public ShotResult fireAt() {
+        return player.fireAt(opponent, TARGET);
+    }
+
+    @Benchmark
+    public ShotResult takeShotAndReport() {
+        return console.takeShotAndReport(player, opponent);
+    }
+
+    /**
+     * An endless input that repeats the same bytes.
+     */
+    static class RepeatingInputStream extends InputStream {
+
+        private final byte[] bytes;
+        private int next;
+
+        RepeatingInputStream(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            byte b = bytes[next];
+            next = (next + 1) % bytes.length;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                buffer[offset + i] = (byte) read();
+            }
+            return length;
+        }
+    }
+}
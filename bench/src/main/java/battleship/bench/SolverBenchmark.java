@@ -0,0 +1,83 @@
+package battleship.bench;
+
+import battleship.ai.ExactSolver;
+import battleship.ai.ProbabilityShooter;
+import battleship.data.Battleship;
+import battleship.data.Board;
+import battleship.data.Player;
+import battleship.data.ShotResult;
+import battleship.sim.FleetGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The exact solver on the positions of a game played by the probability shooter, right after it sinks a ship.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SolverBenchmark {
+
+    /* Number of ships sunk in the position. */
+    @Param({"1", "2", "3"})
+    public int sunk;
+
+    private Board view;
+    private long sunkLo, sunkHi;
+    private List<Integer> afloat;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        Player target = new Player("target");
+        new FleetGenerator().place(target, random);
+        Player shooter = new Player("shooter");
+        ProbabilityShooter strategy = new ProbabilityShooter();
+
+        afloat = new ArrayList<>();
+        for (Battleship battleship : target.getBattleships()) {
+            afloat.add(battleship.getSize());
+        }
+        while (afloat.size() > 5 - sunk) {
+            int index = strategy.nextShot(target.getField(), random);
+            ShotResult result = shooter.fireAt(target, index);
+            strategy.onShotResult(index, result);
+            if (result == ShotResult.SUNK) {
+                Battleship battleship = shooter.getLastSunk();
+                sunkLo |= battleship.getMaskLo();
+                sunkHi |= battleship.getMaskHi();
+                afloat.remove(Integer.valueOf(battleship.getSize()));
+            }
+        }
+
+        view = new Board();
+        Board board = target.getBoard();
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            if (board.isShot(cell)) {
+                view.record(cell, board.isHit(cell));
+            }
+        }
+    }
+
+    @Benchmark
+    public ExactSolver.Solution solve() {
+        return new ExactSolver(view, sunkLo, sunkHi, afloat).solve();
+    }
+}
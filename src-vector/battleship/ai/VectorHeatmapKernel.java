@@ -0,0 +1,38 @@
+package battleship.ai;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Sums the planes a vector of cells at a time, in the widest lanes of the CPU, then the remaining cells one by one.
+ * Loaded by reflection from {@link Kernels}, see {@link HeatmapKernel}.
+ */
+final class VectorHeatmapKernel implements HeatmapKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public void accumulate(int[][] planes, int[] weights, int count, int[] heat, int cells) {
+        int bound = SPECIES.loopBound(cells);
+        int cell = 0;
+        for (; cell < bound; cell += SPECIES.length()) {
+            IntVector sum = IntVector.zero(SPECIES);
+            for (int k = 0; k < count; k++) {
+                sum = IntVector.fromArray(SPECIES, planes[k], cell).mul(weights[k]).add(sum);
+            }
+            sum.intoArray(heat, cell);
+        }
+        for (; cell < cells; cell++) {
+            int sum = 0;
+            for (int k = 0; k < count; k++) {
+                sum += weights[k] * planes[k][cell];
+            }
+            heat[cell] = sum;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "vector " + SPECIES.vectorBitSize() + " bits";
+    }
+}
@@ -0,0 +1,203 @@
+package battleship;
+
+import battleship.data.Coordinate;
+import battleship.data.Field;
+
+import java.io.PrintStream;
+
+/**
+ * Draws the fields of the game. Each frame is composed in a single reusable buffer and written to the output at once,
+ * instead of one write per cell.
+ * <p>
+ * In ANSI mode, a turn frame only redraws the cells that changed since the previous turn frame, by moving the cursor
+ * with escape sequences, then clears everything below the fields and prints the prompt again.
+ * <p>
+ * Fields of any size are drawn the same way as the standard one, with the row names padded to the longest one.
+ */
+public class BoardRenderer {
+
+    /* Line separating the opponent's field from the player's own field. */
+    private static final String SEPARATOR = "---------------------";
+
+    /* Escape sequences: clear the screen and go home, clear from the cursor to the end of the screen. */
+    private static final String CLEAR_SCREEN = "\u001b[2J\u001b[H";
+    private static final String CLEAR_BELOW = "\u001b[J";
+
+    /* Screen line (1-based) of the first row of the first field of a turn frame. */
+    private static final int FIRST_ROW_LINE = 3;
+
+    /* Where the frames are written. */
+    private final PrintStream out;
+
+    /* Whether to redraw only the changed cells of a turn frame. */
+    private final boolean ansi;
+
+    /* The frame being composed, reused for every frame. */
+    private final StringBuilder frame = new StringBuilder(1024);
+
+    /* Dimensions of the fields drawn, known from the first frame. */
+    private int rows, cols;
+
+    /* Column header represents column coordinates, row headers represent row coordinates, padded to the same width. */
+    private String header;
+    private String[] rowNames;
+
+    /* The symbols on screen for the two fields of the last turn frame, valid only in ANSI mode. */
+    private char[][] screen;
+    private boolean screenValid;
+
+    /**
+     * Create a renderer by specifying its output and mode.
+     *
+     * @param out  the stream to write the frames to.
+     * @param ansi whether to redraw only the cells that changed between turn frames.
+     */
+    public BoardRenderer(PrintStream out, boolean ansi) {
+        this.out = out;
+        this.ansi = ansi;
+    }
+
+    /**
+     * Draw a single field.
+     *
+     * @param board    the field to be drawn.
+     * @param fogOfWar whether to hide the ships that were not hit, as the field is seen by the opponent.
+     */
+    public void renderField(Field board, boolean fogOfWar) {
+        layOut(board);
+        frame.setLength(0);
+        appendField(board, fogOfWar, -1);
+        flush();
+
+        /* The field scrolled the screen, the next turn frame has to be drawn in full. */
+        screenValid = false;
+    }
+
+    /**
+     * Draw the frame of a turn: the opponent's field through the fog of war, the player's own field and the prompt.
+     *
+     * @param opponent the field of the opponent.
+     * @param own      the field of the player whose turn it is.
+     * @param prompt   the line asking the player for a shot.
+     */
+    public void renderTurn(Field opponent, Field own, String prompt) {
+        layOut(own);
+        frame.setLength(0);
+        if (ansi && screenValid) {
+            appendChanges(opponent, true, 0);
+            appendChanges(own, false, 1);
+            /* Below the first rows of the fields: their rows, a blank line, the separator, another blank line and
+             * the header of the second field. */
+            appendCursor(FIRST_ROW_LINE + 2 * rows + 5, 1).append(CLEAR_BELOW);
+        } else {
+            if (ansi) {
+                frame.append(CLEAR_SCREEN);
+            }
+            appendField(opponent, true, 0);
+            frame.append(SEPARATOR).append('\n');
+            appendField(own, false, 1);
+            screenValid = ansi;
+        }
+        frame.append(prompt).append('\n');
+        flush();
+    }
+
+    /**
+     * Forget what is on screen, so the next turn frame is drawn in full.
+     * Needed after anything else was written to the output in ANSI mode and scrolled the screen.
+     */
+    public void invalidate() {
+        screenValid = false;
+    }
+
+    /**
+     * Compute the headers of the fields if their dimensions changed.
+     */
+    private void layOut(Field field) {
+        if (header != null && field.getRows() == rows && field.getCols() == cols) {
+            return;
+        }
+        rows = field.getRows();
+        cols = field.getCols();
+        screen = null;
+        screenValid = false;
+
+        int width = Coordinate.rowName(rows - 1).length();
+        rowNames = new String[rows];
+        for (int row = 0; row < rows; row++) {
+            StringBuilder name = new StringBuilder(Coordinate.rowName(row));
+            while (name.length() < width) {
+                name.append(' ');
+            }
+            rowNames[row] = name.append(' ').toString();
+        }
+
+        StringBuilder columns = new StringBuilder();
+        for (int i = 0; i <= width; i++) {
+            columns.append(' ');
+        }
+        for (int col = 1; col <= cols; col++) {
+            columns.append(col).append(col < cols ? " " : "");
+        }
+        header = columns.toString();
+    }
+
+    /**
+     * Append a whole field to the frame.
+     *
+     * @param slot the field of the turn frame to remember the symbols in, or -1.
+     */
+    private void appendField(Field board, boolean fogOfWar, int slot) {
+        if (slot != -1 && screen == null) {
+            screen = new char[2][board.getCells()];
+        }
+        frame.append('\n').append(header).append('\n');
+        for (int row = 0; row < rows; row++) {
+            frame.append(rowNames[row]);
+            for (int col = 0; col < cols; col++) {
+                char symbol = symbolAt(board, fogOfWar, row, col);
+                frame.append(symbol).append(' ');
+                if (slot != -1) {
+                    screen[slot][board.cellOf(row, col)] = symbol;
+                }
+            }
+            frame.append('\n');
+        }
+        frame.append('\n');
+    }
+
+    /**
+     * Append the cells of a field that changed since the last turn frame, each behind a cursor move.
+     */
+    private void appendChanges(Field board, boolean fogOfWar, int slot) {
+        int firstRowLine = FIRST_ROW_LINE + slot * (rows + 4);
+        int firstCellColumn = rowNames[0].length() + 1;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                char symbol = symbolAt(board, fogOfWar, row, col);
+                int index = board.cellOf(row, col);
+                if (screen[slot][index] != symbol) {
+                    screen[slot][index] = symbol;
+                    /* The row header is followed by a space, then each cell takes two columns. */
+                    appendCursor(firstRowLine + row, firstCellColumn + 2 * col).append(symbol);
+                }
+            }
+        }
+    }
+
+    private StringBuilder appendCursor(int line, int column) {
+        return frame.append("\u001b[").append(line).append(';').append(column).append('H');
+    }
+
+    private static char symbolAt(Field board, boolean fogOfWar, int row, int col) {
+        return fogOfWar ? board.fogSymbolAt(row, col) : board.symbolAt(row, col);
+    }
+
+    /**
+     * Write the composed frame with a single write.
+     */
+    private void flush() {
+        out.print(frame);
+        out.flush();
+    }
+}
@@ -0,0 +1,331 @@
+package battleship;
+
+import battleship.data.Battleship;
+import battleship.data.Coordinate;
+import battleship.data.Field;
+import battleship.data.Player;
+import battleship.data.PlacementResult;
+import battleship.data.SalvoReport;
+import battleship.data.ShotResult;
+import battleship.metrics.Metrics;
+import battleship.metrics.PlacementRejectedEvent;
+import battleship.metrics.TurnEvent;
+import battleship.record.GameRecord;
+
+import java.io.PrintStream;
+import java.util.Scanner;
+
+/**
+ * The text user interface of the game, layered on top of the {@link Player} engine.
+ * All the input is read from a single scanner and all the output goes to a single stream.
+ */
+public class GameConsole {
+
+    /* Where the players type their coordinates. */
+    private final Scanner sc;
+
+    /* Where the fields and reports are printed. */
+    private final PrintStream out;
+
+    /* Draws the fields on the output. */
+    private final BoardRenderer renderer;
+
+    /* Receives the fleets and the shots the players enter, null if the game is not recorded. */
+    private GameRecord record;
+
+    /* The cells of the salvo being fired and its report, reused from one turn to the next. */
+    private int[] salvo = new int[0];
+    private final SalvoReport salvoReport = new SalvoReport();
+
+    /**
+     * Create a console by specifying its input and output.
+     *
+     * @param sc  the scanner to read the players' input from.
+     * @param out the stream to print the fields and reports to.
+     */
+    public GameConsole(Scanner sc, PrintStream out) {
+        this(sc, out, false);
+    }
+
+    /**
+     * Create a console by specifying its input, output and drawing mode.
+     *
+     * @param sc   the scanner to read the players' input from.
+     * @param out  the stream to print the fields and reports to.
+     * @param ansi whether to redraw only the cells that changed between turns, using ANSI escape sequences.
+     */
+    public GameConsole(Scanner sc, PrintStream out, boolean ansi) {
+        this.sc = sc;
+        this.out = out;
+        this.renderer = new BoardRenderer(out, ansi);
+    }
+
+    /**
+     * Record the fleets and the shots the players enter from now on.
+     *
+     * @param record the record of the game, or null to stop recording.
+     */
+    public void recordTo(GameRecord record) {
+        this.record = record;
+    }
+
+    /**
+     * Read a whole line of input.
+     *
+     * @return the trimmed line.
+     */
+    public String nextLine() {
+        return sc.nextLine().trim();
+    }
+
+    /**
+     * Ask the player to place his ships on the battlefield.
+     *
+     * @param player the player to place the ships of.
+     */
+    public void takePosition(Player player) {
+        out.println(player.getName() + ", place your ships on the game field");
+        printField(player.getField(), false);
+
+        for (Battleship battleship : player.getBattleships()) {
+            getCoordinatesOf(player, battleship);
+        }
+        if (record != null) {
+            record.placed(player);
+        }
+    }
+
+    /**
+     * Get the coordinates of a battleship and place it on the player's field.
+     * Keep asking until the player enters a legal placement.
+     *
+     * @param player     the owner of the battleship.
+     * @param battleship the battleship to get its coordinates.
+     */
+    void getCoordinatesOf(Player player, Battleship battleship) {
+        out.printf("Enter the coordinates of the %s (%d cells):\n",
+                battleship.getType(), battleship.getSize());
+
+        PlacementResult result;
+        do {
+            String[] cords = nextLine().split("\\s+");
+            result = cords.length == 2
+                    ? player.placeShip(battleship, cords[0], cords[1])
+                    : PlacementResult.IMPROPER_FORMAT;
+
+            if (result != PlacementResult.PLACED) {
+                PlacementRejectedEvent.rejected(battleship.getType(), result);
+            }
+            switch (result) {
+                case IMPROPER_FORMAT:
+                    out.print("Improper format of one or both of the coordinates! Try again:\n");
+                    break;
+
+                case WRONG_ORIENTATION:
+                    out.print("Error! Wrong ship orientation! Try again:\n");
+                    break;
+
+                case WRONG_LENGTH:
+                    out.printf("Error! Wrong length of %s! Try again:\n", battleship.getType());
+                    break;
+
+                case INTERSECTION:
+                case TOO_CLOSE:
+                    out.print("Error! Your ship intercepts or too close to another one. Try again:\n");
+                    break;
+            }
+        } while (result != PlacementResult.PLACED);
+
+        printField(player.getField(), false);
+    }
+
+    /**
+     * Ask the player to take a shot on the opponent's field then print the report of the shot.
+     *
+     * @param player   the player whose turn it is.
+     * @param opponent of the player.
+     * @return the result of the shot.
+     */
+    public ShotResult takeShotAndReport(Player player, Player opponent) {
+        long start = System.nanoTime();
+        TurnEvent event = new TurnEvent();
+        event.begin();
+
+        Field field = opponent.getField();
+        renderer.renderTurn(field, player.getField(), player.getName() + ", it's your turn:");
+
+        int target = Coordinate.parseIndex(nextLine(), field);
+        while (target == -1) {
+            out.print("Improper format of the target! Try again:\n");
+            target = Coordinate.parseIndex(nextLine(), field);
+        }
+        if (record != null) {
+            record.shot(target);
+        }
+
+        ShotResult result = player.fireAt(opponent, target);
+        out.println(reportOf(result, player));
+
+        Metrics.TURN_NANOS.record(System.nanoTime() - start);
+        Metrics.SHOTS.increment();
+        if (result == ShotResult.WIN) {
+            Metrics.GAMES.increment();
+        }
+        if (event.shouldCommit()) {
+            event.player = player.getName();
+            event.target = Coordinate.of(field, target).toString();
+            event.result = result.name();
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Ask the player to fire a salvo on the opponent's field, one shot per ship the player has afloat, then print the
+     * report of the salvo. The targets are entered on a single line, such as "A1 B7 J10". Salvos are not recorded.
+     *
+     * @param player   the player whose turn it is.
+     * @param opponent of the player.
+     * @return the report of the salvo, valid until the next one.
+     */
+    public SalvoReport takeSalvoAndReport(Player player, Player opponent) {
+        long start = System.nanoTime();
+        TurnEvent event = new TurnEvent();
+        event.begin();
+
+        Field field = opponent.getField();
+        int shots = player.getAfloat();
+        renderer.renderTurn(field, player.getField(),
+                player.getName() + ", it's your turn, fire " + shots + (shots == 1 ? " shot:" : " shots:"));
+
+        String line = nextLine();
+        while (!parseSalvo(line, field, shots)) {
+            out.printf("Enter %d targets separated by spaces! Try again:\n", shots);
+            line = nextLine();
+        }
+
+        player.fireSalvo(opponent, salvo, shots, salvoReport);
+        out.println(reportOf(salvoReport, player));
+
+        Metrics.TURN_NANOS.record(System.nanoTime() - start);
+        Metrics.SHOTS.add(shots);
+        if (salvoReport.isWin()) {
+            Metrics.GAMES.increment();
+        }
+        if (event.shouldCommit()) {
+            event.player = player.getName();
+            event.target = line;
+            event.result = salvoReport.getHits() + " HIT " + salvoReport.getMisses() + " MISS "
+                    + salvoReport.getSunk().size() + " SUNK";
+            event.commit();
+        }
+        return salvoReport;
+    }
+
+    /**
+     * Parse the targets of a salvo into the salvo cells.
+     *
+     * @return false if the line does not hold exactly the passed number of targets in a proper format.
+     */
+    private boolean parseSalvo(String line, Field field, int shots) {
+        String[] cords = line.split("\\s+");
+        if (cords.length != shots) {
+            return false;
+        }
+        if (salvo.length < shots) {
+            salvo = new int[shots];
+        }
+        for (int i = 0; i < shots; i++) {
+            salvo[i] = Coordinate.parseIndex(cords[i], field);
+            if (salvo[i] == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Print the report of a salvo fired by a computer player.
+     *
+     * @param player  the player who fired the salvo.
+     * @param targets the indexes of the cells that were shot.
+     * @param report  of the salvo.
+     */
+    public void reportSalvo(Player player, int[] targets, SalvoReport report) {
+        StringBuilder cells = new StringBuilder();
+        for (int i = 0; i < report.getShots(); i++) {
+            cells.append(i == 0 ? "" : ", ").append(Coordinate.of(player.getField(), targets[i]));
+        }
+        out.println(player.getName() + " shoots at " + cells + ". " + reportOf(report, player));
+    }
+
+    /**
+     * Print the report of a shot taken by a computer player.
+     *
+     * @param player the player who took the shot.
+     * @param index  the index of the cell that was shot.
+     * @param result of the shot.
+     */
+    public void reportShot(Player player, int index, ShotResult result) {
+        out.println(player.getName() + " shoots at " + Coordinate.of(player.getField(), index) + ". " +
+                reportOf(result, player));
+    }
+
+    /**
+     * Get the report of a shot as it is shown to the players.
+     *
+     * @param result of the shot.
+     * @param player the player who took the shot.
+     * @return the report of the shot.
+     */
+    static String reportOf(ShotResult result, Player player) {
+        switch (result) {
+            case MISS:
+                return "You missed!";
+
+            case HIT:
+                return "You hit a ship!";
+
+            case SUNK:
+                return "You sank a ship, the " + player.getLastSunk().getType() + "! Specify a new target";
+
+            case WIN:
+                return "You sank the last ship, the " + player.getLastSunk().getType() + ". You won. " +
+                        "Congratulations!\n" +
+                        "The winner is " + player.getName();
+
+            default:
+                throw new IllegalStateException("Unknown shot result " + result);
+        }
+    }
+
+    /**
+     * Get the report of a salvo as it is shown to the players: its hits and misses, then the ships it sank.
+     *
+     * @param report of the salvo.
+     * @param player the player who fired the salvo.
+     * @return the report of the salvo.
+     */
+    static String reportOf(SalvoReport report, Player player) {
+        StringBuilder text = new StringBuilder()
+                .append(report.getHits()).append(report.getHits() == 1 ? " hit, " : " hits, ")
+                .append(report.getMisses()).append(report.getMisses() == 1 ? " miss." : " misses.");
+        for (Battleship battleship : report.getSunk()) {
+            text.append(" You sank the ").append(battleship.getType()).append('!');
+        }
+        if (report.isWin()) {
+            text.append(" You won. Congratulations!\n").append("The winner is ").append(player.getName());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Print the passed field.
+     *
+     * @param board    the field to be printed.
+     * @param fogOfWar whether to hide the ships that were not hit, as the field is seen by the opponent.
+     */
+    public void printField(Field board, boolean fogOfWar) {
+        renderer.renderField(board, fogOfWar);
+    }
+}
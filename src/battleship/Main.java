@@ -1,95 +1,289 @@
 package battleship;
 
+import battleship.ai.EndgameSolver;
+import battleship.ai.ProbabilityShooter;
+import battleship.data.GameConfig;
 import battleship.data.Player;
+import battleship.data.SalvoReport;
+import battleship.data.ShotResult;
+import battleship.metrics.Metrics;
+import battleship.record.GameRecord;
+import battleship.record.Replay;
+import battleship.record.RecordWriter;
+import battleship.server.BotClient;
+import battleship.server.GameServer;
+import battleship.sim.FleetGenerator;
+import battleship.sim.FleetOptimizer;
+import battleship.sim.HuntTargetShooter;
+import battleship.sim.ShootingStrategy;
+import battleship.sim.Tournament;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Scanner;
+import java.util.SplittableRandom;
 
 public class Main {
 
-    public static void main(String[] args) {
-        Scanner sc = new Scanner(System.in);
+    public static void main(String[] args) throws IOException, InterruptedException {
+        /* Bot-vs-bot tournament mode: tournament [games per pair] [seed] [size] [fleet] [record directory] [--salvo] */
+        if (args.length > 0 && args[0].equals("tournament")) {
+            Tournament.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        /* Harden fleets against a shooter: optimize [shooter] [chains] [steps] [games] [seed] */
+        if (args.length > 0 && args[0].equals("optimize")) {
+            FleetOptimizer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        /* Replay or scan recorded games: replay [directory] [--scan] */
+        if (args.length > 0 && args[0].equals("replay")) {
+            Replay.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        /* Scripted games read back to back, one result line per game: script [file] [--size=] [--fleet=] */
+        if (args.length > 0 && args[0].equals("script")) {
+            runScript(args);
+            return;
+        }
+
+        /* Networked mode: server [port] [address] [journal directory], or bots [matches] [concurrent] [port] [address]
+         * to play bots against it. */
+        if (args.length > 0 && args[0].equals("server")) {
+            GameServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("bots")) {
+            BotClient.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        /* Redraw only the changed cells of the fields between turns: --ansi */
+        boolean ansi = Arrays.asList(args).contains("--ansi");
+        GameConsole console = new GameConsole(new Scanner(System.in), System.out, ansi);
+
+        /* Print the counters and the turn latencies at the end of the game: --metrics */
+        boolean metrics = Arrays.asList(args).contains("--metrics");
+
+        /* Field dimensions and fleet: --size=20x30 --fleet=Carrier:5,Destroyer:2 */
+        GameConfig config = GameConfig.parse(option(args, "--size="), option(args, "--fleet="));
+
+        /* Salvo variant, each player fires one shot per ship afloat in each turn: --salvo */
+        boolean salvo = Arrays.asList(args).contains("--salvo");
+
+        /* Record the game in a directory of game records: --record=records */
+        String recordDirectory = option(args, "--record=");
+        if (salvo && recordDirectory != null) {
+            System.err.println("Salvo games cannot be recorded");
+            return;
+        }
+        if (recordDirectory != null && !config.isStandardField()) {
+            System.err.println("Only games on the standard field can be recorded");
+            return;
+        }
+        GameRecord record = recordDirectory == null ? null : new GameRecord();
+        console.recordTo(record);
+
+        /* Single player mode against the computer: computer */
+        if (args.length > 0 && args[0].equals("computer")) {
+            playAgainstComputer(console, config, record, salvo);
+            save(record, recordDirectory);
+            printMetrics(metrics);
+            return;
+        }
 
         System.out.print("First player name: ");
-        String player1Name = sc.nextLine();
+        String player1Name = console.nextLine();
 
         System.out.print("Second player name: ");
-        String player2Name = sc.nextLine();
+        String player2Name = console.nextLine();
 
         System.out.println("******************************************");
 
-        Player player1 = new Player(player1Name);
-        Player player2 = new Player(player2Name);
+        Player player1 = new Player(player1Name, config);
+        Player player2 = new Player(player2Name, config);
 
-        takePositions(player1, player2);
+        takePositions(console, player1, player2);
 
         /*
          * Keep asking the players to hit each other's ships until one of them loses all of his ships.
+         * Player 1 starts the first move.
          * */
-        while (true) {
-            // Player 1 starts the first move.
-            String report = player1.takeShotAndReport(player2);
-
-            // Is game over?
-            if (report.contains("winner")) {
-                System.out.println(report);
-                System.out.println("\n\n*****Game Over*****\n\n");
-                break;
-            }
+        Player player = player1;
+        Player opponent = player2;
+        while (!takeTurn(console, player, opponent, salvo)) {
+            System.out.println("Press Enter and pass the move to another player");
+            console.nextLine();
 
-            System.out.println(report + "\n" +
-                    "Press Enter and pass the move to another player");
-            sc.nextLine();
+            // The other player's turn.
+            Player next = opponent;
+            opponent = player;
+            player = next;
+        }
 
-            // Player 2 turn.
-            report = player2.takeShotAndReport(player1);
-            if (report.contains("winner")) {
-                System.out.println(report);
-                System.out.println("\n\n*****Game Over*****\n\n");
-                break;
-            }
+        System.out.println("\n\n*****Game Over*****\n\n");
+        save(record, recordDirectory);
+        printMetrics(metrics);
+    }
+
+    /**
+     * Let a player take a shot, or fire a salvo in the Salvo variant.
+     *
+     * @return true if the player won.
+     */
+    private static boolean takeTurn(GameConsole console, Player player, Player opponent, boolean salvo) {
+        return salvo
+                ? console.takeSalvoAndReport(player, opponent).isWin()
+                : console.takeShotAndReport(player, opponent) == ShotResult.WIN;
+    }
 
-            System.out.println(report + "\n" +
-                    "Press Enter and pass the move to another player");
-            sc.nextLine();
+    private static void printMetrics(boolean metrics) {
+        if (metrics) {
+            System.out.print(Metrics.snapshot());
         }
     }
 
     /**
-     * For each player in the game, ask them to place their ships on the field.
+     * Play the scripted games of a file, or of the standard input if no file is passed, and write their results to
+     * the standard output. A summary goes to the standard error.
      *
-     * @param players the players involved in the game, usually two players.
+     * @param args the command line arguments, starting with "script".
      */
-    private static void takePositions(Player... players) {
-        for (Player player : players) {
-            player.takePosition();
-            System.out.println("Press Enter and pass the move to another player");
-            new Scanner(System.in).nextLine();
+    private static void runScript(String[] args) throws IOException {
+        GameConfig config = GameConfig.parse(option(args, "--size="), option(args, "--fleet="));
+        boolean fromFile = args.length > 1 && !args[1].startsWith("--");
+
+        long start = System.nanoTime();
+        ScriptRunner runner;
+        try (BufferedReader in = fromFile
+                ? Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+            runner = new ScriptRunner(in, out, config);
+            runner.run();
+            out.flush();
         }
+        System.err.printf("%d games, %d errors in %.3f s%n", runner.getGames(), runner.getErrors(),
+                (System.nanoTime() - start) / 1e9);
     }
 
     /**
-     * Print the passed field.
+     * Append a finished game to the records of a directory. Each game starts a segment of its own, the console
+     * plays too few games for the segments to be worth filling.
      *
-     * @param field the field to be printed.
+     * @param record    the record of the game, or null if it was not recorded.
+     * @param directory where the records are kept.
      */
-    public static void printField(char[][] field) {
-        // Column header represents column coordinates.
-        System.out.println("\n  1 2 3 4 5 6 7 8 9 10");
+    private static void save(GameRecord record, String directory) throws IOException {
+        if (record == null) {
+            return;
+        }
+        try (RecordWriter records = new RecordWriter(Paths.get(directory))) {
+            records.append(record);
+        }
+    }
 
-        // Row header represents row coordinates.
-        char[] rows = {'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J'};
+    /**
+     * Play a game against a computer player that places a uniformly random fleet and shoots by probability density.
+     * The human player starts the first move.
+     * <p>
+     * The probability shooter only plays on the standard field, elsewhere the computer hunts and targets. Once two
+     * ships are left, it solves the endgame exactly when it can, thinking up to 50 ms per shot.
+     *
+     * @param console the console the human player uses.
+     * @param config  the dimensions of the field and the fleet.
+     * @param record  receives the fleets and the shots of the game, or null to not record it.
+     * @param salvo   whether the game is of the Salvo variant.
+     */
+    private static void playAgainstComputer(GameConsole console, GameConfig config, GameRecord record,
+                                            boolean salvo) {
+        System.out.print("Player name: ");
+        Player player = new Player(console.nextLine(), config);
+        Player computer = new Player("Computer", config);
 
-        int rowIndex = 0;
-        for (char[] vector : field) {
-            System.out.print(rows[rowIndex] + " ");
+        SplittableRandom random = new SplittableRandom();
+        new FleetGenerator(config.newFleet()).place(computer, random);
+        ShootingStrategy shooter = config.isStandardField()
+                ? new ProbabilityShooter(config.newFleet(), new EndgameSolver(2, 4096, Long.MAX_VALUE, 50_000_000L))
+                : new HuntTargetShooter();
 
-            for (char symbol : vector) {
-                System.out.print(symbol + " ");
+        System.out.println("******************************************");
+        takePositions(console, player);
+        if (record != null) {
+            record.placed(computer);
+        }
+
+        int[] cells = new int[computer.getBattleships().size()];
+        SalvoReport report = new SalvoReport();
+        while (!takeTurn(console, player, computer, salvo)) {
+            if (salvo) {
+                int count = shooter.nextSalvo(player.getField(), computer.getAfloat(), random, cells);
+                computer.fireSalvo(player, cells, count, report);
+                shooter.onSalvoResult(cells, report);
+                console.reportSalvo(computer, cells, report);
+                Metrics.SHOTS.add(count);
+                if (report.isWin()) {
+                    Metrics.GAMES.increment();
+                    break;
+                }
+                continue;
+            }
+
+            int index = shooter.nextShot(player.getField(), random);
+            if (record != null) {
+                record.shot(index);
+            }
+            ShotResult result = computer.fireAt(player, index);
+            shooter.onShotResult(index, result);
+            console.reportShot(computer, index, result);
+            Metrics.SHOTS.increment();
+            if (result == ShotResult.WIN) {
+                Metrics.GAMES.increment();
+                break;
             }
-            rowIndex++;
-            System.out.println();
         }
 
-        System.out.println();
+        System.out.println("\n\n*****Game Over*****\n\n");
+    }
+
+    /**
+     * Get the value of a command line option such as --size=20x30.
+     *
+     * @param args   the command line arguments.
+     * @param prefix the name of the option followed by '='.
+     * @return the value of the option, or null if it is absent.
+     */
+    private static String option(String[] args, String prefix) {
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * For each player in the game, ask them to place their ships on the field.
+     *
+     * @param console the console the players use.
+     * @param players the players involved in the game, usually two players.
+     */
+    private static void takePositions(GameConsole console, Player... players) {
+        for (Player player : players) {
+            console.takePosition(player);
+            System.out.println("Press Enter and pass the move to another player");
+            console.nextLine();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,199 @@
+package battleship;
+
+import battleship.data.Battleship;
+import battleship.data.Coordinate;
+import battleship.data.GameConfig;
+import battleship.data.PlacementResult;
+import battleship.data.Player;
+import battleship.data.ShotResult;
+import battleship.metrics.Metrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Plays scripted games back to back, without prompts nor fields, and writes one result line per game.
+ * <p>
+ * A game is the lines a console game would read, without the empty lines passing the move: the names of the two
+ * players, the placements of the first player's ships then of the second player's, such as "A1 A5" in the order of
+ * the fleet, then the shots of the players in turn, such as "B7", until one of them wins. Games may be separated by
+ * empty lines, and lines starting with '#' are comments.
+ * <p>
+ * A game that was won gives the line "&lt;game&gt; WIN &lt;winner&gt; &lt;shots of the winner&gt; &lt;shots&gt;".
+ * A game that breaks the script, such as a rejected placement, gives the line
+ * "&lt;game&gt; ERROR &lt;line&gt; &lt;reason&gt;" and the rest of it is skipped, up to the next empty line.
+ */
+public class ScriptRunner {
+
+    /* Where the scripts are read from and the results written to. */
+    private final BufferedReader in;
+    private final Writer out;
+
+    /* The dimensions of the field and the fleet of every game. */
+    private final GameConfig config;
+
+    /* Number of the last line read, from 1. */
+    private long lineNumber;
+
+    /* Number of games played, and how many of them broke the script. */
+    private long games;
+    private long errors;
+
+    /**
+     * Create a runner by specifying its input, output and the game it plays.
+     *
+     * @param in     the reader of the scripts.
+     * @param out    the writer of the results, flushed by the caller.
+     * @param config the dimensions of the field and the fleet.
+     */
+    public ScriptRunner(BufferedReader in, Writer out, GameConfig config) {
+        this.in = in;
+        this.out = out;
+        this.config = config;
+    }
+
+    /**
+     * Play every game of the input, up to its end.
+     *
+     * @return the number of games played, including the broken ones.
+     * @throws IOException if the input cannot be read or the output cannot be written.
+     */
+    public long run() throws IOException {
+        String line;
+        while ((line = nextLine(true)) != null) {
+            games++;
+            String result;
+            try {
+                result = play(line);
+            } catch (ScriptException e) {
+                errors++;
+                result = "ERROR " + e.line + " " + e.getMessage();
+                if (!e.endOfGame) {
+                    skipGame();
+                }
+            }
+            out.write(Long.toString(games));
+            out.write(' ');
+            out.write(result);
+            out.write('\n');
+        }
+        return games;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Play one game from the name of its first player.
+     *
+     * @return the result of the game.
+     */
+    private String play(String firstName) throws IOException, ScriptException {
+        Player first = new Player(firstName, config);
+        Player second = new Player(required(), config);
+        place(first);
+        place(second);
+
+        Player player = first;
+        Player opponent = second;
+        int shots = 0;
+        while (true) {
+            String line = required();
+            int target = Coordinate.parseIndex(line, opponent.getField());
+            if (target == -1) {
+                throw new ScriptException(lineNumber, "IMPROPER_TARGET", false);
+            }
+
+            shots++;
+            ShotResult result = player.fireAt(opponent, target);
+            if (result == ShotResult.WIN) {
+                Metrics.GAMES.increment();
+                Metrics.SHOTS.add(shots);
+                return "WIN " + player.getName() + " " + (shots + 1) / 2 + " " + shots;
+            }
+
+            Player next = opponent;
+            opponent = player;
+            player = next;
+        }
+    }
+
+    private void place(Player player) throws IOException, ScriptException {
+        for (Battleship battleship : player.getBattleships()) {
+            String line = required();
+            int space = line.indexOf(' ');
+            PlacementResult result = space == -1
+                    ? PlacementResult.IMPROPER_FORMAT
+                    : player.placeShip(battleship, line.substring(0, space), line.substring(space + 1).trim());
+            if (result != PlacementResult.PLACED) {
+                throw new ScriptException(lineNumber, result.name(), false);
+            }
+        }
+    }
+
+    /**
+     * Read the next line of the game being played.
+     *
+     * @throws ScriptException if the input ends in the middle of the game.
+     */
+    private String required() throws IOException, ScriptException {
+        String line = nextLine(false);
+        if (line == null || line.isEmpty()) {
+            throw new ScriptException(lineNumber, line == null ? "END_OF_INPUT" : "INCOMPLETE_GAME", true);
+        }
+        return line;
+    }
+
+    /**
+     * Read the next line that is not a comment.
+     *
+     * @param skipEmpty whether to skip the empty lines too, between two games.
+     * @return the trimmed line, or null at the end of the input.
+     */
+    private String nextLine(boolean skipEmpty) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (!line.startsWith("#") && !(skipEmpty && line.isEmpty())) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Skip the rest of a broken game, up to the next empty line.
+     */
+    private void skipGame() throws IOException {
+        String line = nextLine(false);
+        while (line != null && !line.isEmpty()) {
+            line = nextLine(false);
+        }
+    }
+
+    /**
+     * A script that cannot be played, at a given line.
+     */
+    private static class ScriptException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long line;
+
+        /* Whether the line that broke the script ended the game, so there is nothing left of it to skip. */
+        private final boolean endOfGame;
+
+        ScriptException(long line, String reason, boolean endOfGame) {
+            super(reason);
+            this.line = line;
+            this.endOfGame = endOfGame;
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package battleship.ai;
+
+import battleship.data.Board;
+import battleship.data.ShipPlacements;
+import battleship.data.Zobrist;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the shot that minimises the expected number of shots left to sink the last ships afloat, by an expectimax
+ * over every arrangement of those ships consistent with the observations.
+ * <p>
+ * The arrangements are enumerated once, as in {@link ExactSolver} but kept one by one, and the search then works on
+ * subsets of them: a shot splits the arrangements by what it would report, a miss, a hit or the sinking of a ship
+ * with its cells, and the expected shots of the position are one plus those of each outcome, weighted by its share
+ * of the arrangements. Every arrangement needs a shot per ship cell left, so the expected shots are those cells plus
+ * the expected misses. A shot cannot lead to fewer than those cells plus its chance of missing, so the shots are tried
+ * from the most likely hit and the rest are cut once that bound is no better than the best shot so far; the sum over
+ * the outcomes of a shot is also cut short, each outcome counting as such a floor until it is solved. A cell every
+ * arrangement occupies is shot right away, since it has to be shot anyway.
+ * <p>
+ * Positions are memoised on the Zobrist hash of their marks (hits, misses and cells of sunk ships, see
+ * {@link Zobrist}), in a cache that may be shared by the solvers of the same fleet. The marks of a position tell
+ * exactly which arrangements are left, whatever the order of the shots, so the position reached by the next shot of
+ * a game is often already solved. A solve gives up, and returns null for the caller to fall back to a heuristic, if
+ * there are too many arrangements, or if it searches too many nodes or runs out of time; the positions it solved
+ * completely stay memoised.
+ * <p>
+ * A cached position is not searched again, so whether a solve fits in its nodes depends on what was cached before.
+ * Without a shared cache each solve memoises the positions of its own search only, and with no time limit its plan
+ * then depends on nothing but the position, as a reproducible simulation needs.
+ */
+public class EndgameSolver {
+
+    /* Nodes searched between two looks at the clock. */
+    private static final int CLOCK_NODES = 256;
+
+    /* Positions memoised by a single solve, when the solver has no cache. */
+    private static final int SOLVE_CACHE = 1 << 10;
+
+    /* Most ships afloat, most arrangements, most nodes and most time of a solve. */
+    private final int maxShips;
+    private final int maxArrangements;
+    private final long maxNodes;
+    private final long budgetNanos;
+
+    /* The best shot of each position solved, by the hash of its marks, null to memoise within each solve only. */
+    private final TranspositionCache<Plan> cache;
+
+    /**
+     * Create a solver with its own cache.
+     *
+     * @param maxShips        the most ships afloat in a position it solves.
+     * @param maxArrangements the most arrangements of those ships it searches.
+     * @param maxNodes        the most nodes a solve may search, Long.MAX_VALUE for no limit.
+     * @param budgetNanos     the time a solve may take, in nanoseconds, Long.MAX_VALUE for no limit.
+     */
+    public EndgameSolver(int maxShips, int maxArrangements, long maxNodes, long budgetNanos) {
+        this(maxShips, maxArrangements, maxNodes, budgetNanos, new TranspositionCache<>(1 << 16));
+    }
+
+    /**
+     * Create a solver.
+     *
+     * @param maxShips        the most ships afloat in a position it solves.
+     * @param maxArrangements the most arrangements of those ships it searches.
+     * @param maxNodes        the most nodes a solve may search, Long.MAX_VALUE for no limit.
+     * @param budgetNanos     the time a solve may take, in nanoseconds, Long.MAX_VALUE for no limit.
+     * @param cache           the positions solved so far, shared only by solvers playing against the same fleet,
+     *                        or null to memoise the positions within each solve only, see the class comment.
+     */
+    public EndgameSolver(int maxShips, int maxArrangements, long maxNodes, long budgetNanos,
+                         TranspositionCache<Plan> cache) {
+        this.maxShips = maxShips;
+        this.maxArrangements = maxArrangements;
+        this.maxNodes = maxNodes;
+        this.budgetNanos = budgetNanos;
+        this.cache = cache;
+    }
+
+    /**
+     * Get the most ships afloat in a position the solver solves.
+     */
+    public int getMaxShips() {
+        return maxShips;
+    }
+
+    /**
+     * Get the best shot at a position. Only the hits and misses of the view are used.
+     *
+     * @param view   the opponent's field as seen by the player: its hits and misses.
+     * @param sunkLo the cells of the sunk ships, low word.
+     * @param sunkHi the cells of the sunk ships, high word.
+     * @param afloat the sizes of the ships still afloat, in any order.
+     * @return the best shot and the expected shots left, or null if the position has too many ships afloat or
+     *         arrangements, or could not be solved within the nodes or the time of a solve.
+     */
+    public Plan solve(Board view, long sunkLo, long sunkHi, List<Integer> afloat) {
+        if (afloat.isEmpty() || afloat.size() > maxShips) {
+            return null;
+        }
+
+        long key = 0;
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            if (view.isHit(cell)) {
+                key ^= Zobrist.cell(cell, Zobrist.HIT);
+                if (Board.contains(sunkLo, sunkHi, cell)) {
+                    key ^= Zobrist.cell(cell, Zobrist.SUNK);
+                }
+            } else if (view.isMiss(cell)) {
+                key ^= Zobrist.cell(cell, Zobrist.MISS);
+            }
+        }
+        Plan known = cache != null ? cache.get(key) : null;
+        if (known != null) {
+            return known;
+        }
+
+        Search search = new Search(view, sunkLo, sunkHi, afloat, System.nanoTime() + budgetNanos);
+        try {
+            if (!search.enumerate()) {
+                return null;
+            }
+            return search.solve(key, cache != null ? cache : new TranspositionCache<>(SOLVE_CACHE));
+        } catch (OutOfBudget e) {
+            return null;
+        }
+    }
+
+    /**
+     * The state of a single solve: the arrangements of the position and the scratch space of the search.
+     */
+    private final class Search {
+
+        /* Sizes of the ships afloat, largest first. */
+        private final int[] sizes;
+
+        /* Cells no ship afloat can occupy, and hits of the ships afloat. */
+        private final long forbiddenLo, forbiddenHi;
+        private final long pendingLo, pendingHi;
+
+        /* Cells shot before the search. */
+        private final long shotLo, shotHi;
+
+        /* The cells of each ship of each arrangement, arrangement after arrangement, and of each arrangement. */
+        private long[] shipLo, shipHi;
+        private long[] cellsLo, cellsHi;
+        private int arrangements;
+
+        /* The placement of each depth while enumerating. */
+        private final int[] placement;
+
+        /* Counts of the cells occupied by the arrangements of an outcome, when bounding it. */
+        private final int[] scratch = new int[Board.CELLS];
+
+        /* The positions solved, the solver's cache or that of this solve. */
+        private TranspositionCache<Plan> memo;
+
+        private final long deadline;
+        private long nodes;
+
+        Search(Board view, long sunkLo, long sunkHi, List<Integer> afloat, long deadline) {
+            sizes = new int[afloat.size()];
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = afloat.get(i);
+            }
+            Arrays.sort(sizes);
+            for (int i = 0, j = sizes.length - 1; i < j; i++, j--) {
+                int size = sizes[i];
+                sizes[i] = sizes[j];
+                sizes[j] = size;
+            }
+
+            long lo = view.getMissesLo();
+            long hi = view.getMissesHi();
+            for (int cell = 0; cell < Board.CELLS; cell++) {
+                if (Board.contains(sunkLo, sunkHi, cell)) {
+                    lo |= Board.haloLo(cell, 1, false);
+                    hi |= Board.haloHi(cell, 1, false);
+                }
+            }
+            forbiddenLo = lo;
+            forbiddenHi = hi;
+            pendingLo = view.getHitsLo() & ~sunkLo;
+            pendingHi = view.getHitsHi() & ~sunkHi;
+            shotLo = view.getHitsLo() | view.getMissesLo();
+            shotHi = view.getHitsHi() | view.getMissesHi();
+
+            int capacity = Math.min(maxArrangements, 1024);
+            shipLo = new long[capacity * sizes.length];
+            shipHi = new long[capacity * sizes.length];
+            cellsLo = new long[capacity];
+            cellsHi = new long[capacity];
+            placement = new int[sizes.length];
+            this.deadline = deadline;
+        }
+
+        /**
+         * Enumerate the arrangements.
+         *
+         * @return false if there are more than the solver searches.
+         */
+        boolean enumerate() {
+            return place(0, forbiddenLo, forbiddenHi, 0, 0);
+        }
+
+        /**
+         * Place the ships from a depth to the last, keeping the arrangements that cover every pending hit. Ships of
+         * the same size are placed in increasing order of placement, so each arrangement is kept once.
+         */
+        private boolean place(int depth, long forbiddenLo, long forbiddenHi, long coveredLo, long coveredHi) {
+            if (depth == sizes.length) {
+                if (((pendingLo & ~coveredLo) | (pendingHi & ~coveredHi)) != 0) {
+                    return true;
+                }
+                return add();
+            }
+            tick();
+
+            ShipPlacements table = ShipPlacements.ofSize(sizes[depth]);
+            int first = depth > 0 && sizes[depth] == sizes[depth - 1] ? placement[depth - 1] + 1 : 0;
+            for (int id = first; id < table.count; id++) {
+                long lo = table.shipLo[id];
+                long hi = table.shipHi[id];
+                if (((lo & forbiddenLo) | (hi & forbiddenHi)) != 0) {
+                    continue;
+                }
+                /* A pending hit next to the ship must be part of it, the ship covering it would touch this one. */
+                if (((table.haloLo[id] & ~lo & pendingLo) | (table.haloHi[id] & ~hi & pendingHi)) != 0) {
+                    continue;
+                }
+                placement[depth] = id;
+                if (!place(depth + 1, forbiddenLo | table.haloLo[id], forbiddenHi | table.haloHi[id],
+                        coveredLo | lo, coveredHi | hi)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean add() {
+            if (arrangements == maxArrangements) {
+                return false;
+            }
+            if (arrangements == cellsLo.length) {
+                int capacity = Math.min(maxArrangements, arrangements * 2);
+                shipLo = Arrays.copyOf(shipLo, capacity * sizes.length);
+                shipHi = Arrays.copyOf(shipHi, capacity * sizes.length);
+                cellsLo = Arrays.copyOf(cellsLo, capacity);
+                cellsHi = Arrays.copyOf(cellsHi, capacity);
+            }
+            for (int depth = 0; depth < sizes.length; depth++) {
+                ShipPlacements table = ShipPlacements.ofSize(sizes[depth]);
+                int at = arrangements * sizes.length + depth;
+                shipLo[at] = table.shipLo[placement[depth]];
+                shipHi[at] = table.shipHi[placement[depth]];
+                cellsLo[arrangements] |= shipLo[at];
+                cellsHi[arrangements] |= shipHi[at];
+            }
+            arrangements++;
+            return true;
+        }
+
+        /**
+         * Solve the position of every arrangement.
+         *
+         * @param memo where the positions solved are memoised.
+         * @return the best shot, or null if there is no arrangement, the observations being inconsistent.
+         */
+        Plan solve(long key, TranspositionCache<Plan> memo) {
+            if (arrangements == 0) {
+                return null;
+            }
+            this.memo = memo;
+            int[] all = new int[arrangements];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            int cells = 0;
+            for (int size : sizes) {
+                cells += size;
+            }
+            int left = cells - Long.bitCount(pendingLo) - Long.bitCount(pendingHi);
+            return expect(all, shotLo, shotHi, left, key);
+        }
+
+        /**
+         * Get the best shot at a position.
+         *
+         * @param subset the arrangements left.
+         * @param shotLo the cells shot, low word.
+         * @param shotHi the cells shot, high word.
+         * @param left   the ship cells left to shoot, the same in every arrangement left.
+         * @param key    the hash of the marks of the position.
+         * @return the best shot and the expected shots left.
+         */
+        private Plan expect(int[] subset, long shotLo, long shotHi, int left, long key) {
+            if (subset.length == 1) {
+                /* Nothing is left to find out, every shot hits. */
+                long lo = cellsLo[subset[0]] & ~shotLo;
+                long hi = cellsHi[subset[0]] & ~shotHi;
+                return new Plan(lo != 0 ? Long.numberOfTrailingZeros(lo) : 64 + Long.numberOfTrailingZeros(hi), left);
+            }
+            Plan known = memo.get(key);
+            if (known != null) {
+                return known;
+            }
+            tick();
+
+            int[] counts = new int[Board.CELLS];
+            for (int arrangement : subset) {
+                for (long bits = cellsLo[arrangement] & ~shotLo; bits != 0; bits &= bits - 1) {
+                    counts[Long.numberOfTrailingZeros(bits)]++;
+                }
+                for (long bits = cellsHi[arrangement] & ~shotHi; bits != 0; bits &= bits - 1) {
+                    counts[64 + Long.numberOfTrailingZeros(bits)]++;
+                }
+            }
+
+            /* The cells some arrangements occupy, from the most likely hit. A certain hit is taken right away. */
+            int[] candidates = new int[Board.CELLS];
+            int count = 0;
+            for (int cell = 0; cell < Board.CELLS; cell++) {
+                if (counts[cell] == subset.length) {
+                    candidates[0] = cell;
+                    count = 1;
+                    break;
+                }
+                if (counts[cell] > 0) {
+                    int i = count++;
+                    for (; i > 0 && counts[candidates[i - 1]] < counts[cell]; i--) {
+                        candidates[i] = candidates[i - 1];
+                    }
+                    candidates[i] = cell;
+                }
+            }
+
+            Plan best = null;
+            for (int i = 0; i < count; i++) {
+                int cell = candidates[i];
+                double bound = left + (double) (subset.length - counts[cell]) / subset.length;
+                if (best != null && bound >= best.shots) {
+                    break;
+                }
+                double shots = shoot(subset, cell, counts[cell], shotLo, shotHi, left, key,
+                        best == null ? Double.POSITIVE_INFINITY : best.shots);
+                if (best == null || shots < best.shots) {
+                    best = new Plan(cell, shots);
+                }
+            }
+            memo.put(key, best);
+            return best;
+        }
+
+        /**
+         * Get the expected shots left after shooting a cell: one for the shot, then those of each outcome. Each
+         * outcome counts as its floor until it is solved, so the sum is cut short once it reaches the best shot so
+         * far.
+         *
+         * @param cutoff the expected shots of the best shot so far.
+         * @return the expected shots, or a bound of them no lower than the cutoff.
+         */
+        private double shoot(int[] subset, int cell, int hits, long shotLo, long shotHi, int left, long key,
+                             double cutoff) {
+            long nextShotLo = shotLo | Board.bitLo(cell);
+            long nextShotHi = shotHi | Board.bitHi(cell);
+
+            /* The arrangements by outcome: the misses, then the hits grouped by the ship they sink, if any. */
+            int[] missed = new int[subset.length - hits];
+            int[] hit = new int[hits];
+            long[] sunkLo = new long[hits];
+            long[] sunkHi = new long[hits];
+            int misses = 0;
+            int hitCount = 0;
+            for (int arrangement : subset) {
+                if (!Board.contains(cellsLo[arrangement], cellsHi[arrangement], cell)) {
+                    missed[misses++] = arrangement;
+                    continue;
+                }
+                for (int depth = 0; depth < sizes.length; depth++) {
+                    int at = arrangement * sizes.length + depth;
+                    if (Board.contains(shipLo[at], shipHi[at], cell)) {
+                        boolean sinks = ((shipLo[at] & ~nextShotLo) | (shipHi[at] & ~nextShotHi)) == 0;
+                        sunkLo[hitCount] = sinks ? shipLo[at] : 0;
+                        sunkHi[hitCount] = sinks ? shipHi[at] : 0;
+                        break;
+                    }
+                }
+                hit[hitCount++] = arrangement;
+            }
+
+            /* The outcomes: their arrangements, the hash of their marks and their ship cells left. */
+            int[][] groups = new int[hitCount + 1][];
+            long[] keys = new long[groups.length];
+            int[] lefts = new int[groups.length];
+            int outcomes = 0;
+            if (misses > 0) {
+                groups[outcomes] = missed;
+                keys[outcomes] = key ^ Zobrist.cell(cell, Zobrist.MISS);
+                lefts[outcomes++] = left;
+            }
+            if (left > 1) {
+                long hitKey = key ^ Zobrist.cell(cell, Zobrist.HIT);
+                boolean[] done = new boolean[hitCount];
+                for (int i = 0; i < hitCount; i++) {
+                    if (done[i]) {
+                        continue;
+                    }
+                    int[] group = new int[hitCount - i];
+                    int size = 0;
+                    for (int j = i; j < hitCount; j++) {
+                        if (!done[j] && sunkLo[j] == sunkLo[i] && sunkHi[j] == sunkHi[i]) {
+                            done[j] = true;
+                            group[size++] = hit[j];
+                        }
+                    }
+                    long groupKey = hitKey;
+                    for (long bits = sunkLo[i]; bits != 0; bits &= bits - 1) {
+                        groupKey ^= Zobrist.cell(Long.numberOfTrailingZeros(bits), Zobrist.SUNK);
+                    }
+                    for (long bits = sunkHi[i]; bits != 0; bits &= bits - 1) {
+                        groupKey ^= Zobrist.cell(64 + Long.numberOfTrailingZeros(bits), Zobrist.SUNK);
+                    }
+                    groups[outcomes] = Arrays.copyOf(group, size);
+                    keys[outcomes] = groupKey;
+                    lefts[outcomes++] = left - 1;
+                }
+            }
+
+            /* Bound the shot by the floors of its outcomes, then replace them by their solutions one by one. */
+            double n = subset.length;
+            double[] floors = new double[outcomes];
+            double bound = 1;
+            for (int i = 0; i < outcomes; i++) {
+                floors[i] = floor(groups[i], nextShotLo, nextShotHi, lefts[i], keys[i]);
+                bound += groups[i].length / n * floors[i];
+            }
+            for (int i = 0; i < outcomes && bound < cutoff; i++) {
+                double shots = expect(groups[i], nextShotLo, nextShotHi, lefts[i], keys[i]).shots;
+                bound += groups[i].length / n * (shots - floors[i]);
+            }
+            return bound;
+        }
+
+        /**
+         * Get a lower bound of the expected shots left at a position: its ship cells left, plus the chance that the
+         * next shot misses, which is at least that of the cell most arrangements occupy.
+         */
+        private double floor(int[] subset, long shotLo, long shotHi, int left, long key) {
+            if (subset.length == 1) {
+                return left;
+            }
+            Plan known = memo.get(key);
+            if (known != null) {
+                return known.shots;
+            }
+
+            int[] counts = scratch;
+            Arrays.fill(counts, 0);
+            int most = 0;
+            for (int arrangement : subset) {
+                for (long bits = cellsLo[arrangement] & ~shotLo; bits != 0; bits &= bits - 1) {
+                    most = Math.max(most, ++counts[Long.numberOfTrailingZeros(bits)]);
+                }
+                for (long bits = cellsHi[arrangement] & ~shotHi; bits != 0; bits &= bits - 1) {
+                    most = Math.max(most, ++counts[64 + Long.numberOfTrailingZeros(bits)]);
+                }
+            }
+            return left + 1 - (double) most / subset.length;
+        }
+
+        /**
+         * Count a node, and give up the solve if it searched too many nodes, or once in a while if it is out of time.
+         */
+        private void tick() {
+            if (++nodes > maxNodes || (nodes % CLOCK_NODES == 0 && System.nanoTime() - deadline > 0)) {
+                throw new OutOfBudget();
+            }
+        }
+    }
+
+    /**
+     * Thrown out of a search that ran out of nodes or time, without a stack trace since it is expected.
+     */
+    private static final class OutOfBudget extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        OutOfBudget() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * The best shot at a position and the expected number of shots left to sink every ship when playing it.
+     */
+    public static final class Plan {
+
+        private final int cell;
+        private final double shots;
+
+        Plan(int cell, double shots) {
+            this.cell = cell;
+            this.shots = shots;
+        }
+
+        /**
+         * Get the cell to shoot.
+         */
+        public int getCell() {
+            return cell;
+        }
+
+        /**
+         * Get the expected number of shots left to sink every ship afloat, this one included.
+         */
+        public double getExpectedShots() {
+            return shots;
+        }
+    }
+}
@@ -0,0 +1,503 @@
+package battleship.ai;
+
+import battleship.data.Battleship;
+import battleship.data.Board;
+import battleship.data.Player;
+import battleship.data.ShipPlacements;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts every arrangement of the ships still afloat that is consistent with what a player observed on the
+ * opponent's field, and how many of them occupy each cell, which gives the exact probability of a ship on each cell.
+ * <p>
+ * An arrangement places each ship afloat so that it crosses no miss, touches no other ship (the halo rule of
+ * {@link Board#check(int, int, boolean)}) nor a sunk one, and the ships together cover every hit that does not
+ * belong to a sunk ship. The ships are placed from the largest one, each placement being a single test of its
+ * precomputed mask against the cells forbidden so far. Placements that touch a pending hit without covering it are
+ * ruled out before the search, since the ship covering that hit would touch them.
+ * <p>
+ * The completions of a partial arrangement only depend on the forbidden cells the remaining ships could still
+ * occupy and on the hits left to cover, so they are memoised on that region. The placements of the first ship are
+ * searched in parallel and share the memo. Ships of the same size are counted in every order, then the counts are
+ * divided by the number of orders, so the counts are of distinct arrangements.
+ * <p>
+ * Once a ship is sunk the arrangements of the standard fleet are down to tens of millions and are counted in well
+ * under a second. With the whole fleet afloat there are about a billion of them, which takes tens of seconds.
+ */
+public class ExactSolver {
+
+    /* Most memoised regions kept, each holding a count per cell. */
+    private static final int MEMO_LIMIT = 1 << 18;
+
+    /* The completions of an empty fleet: a single arrangement placing nothing. */
+    private static final Node ONE = new Node(1, null);
+
+    /* Sizes of the ships afloat, largest first. */
+    private final int[] sizes;
+
+    /* Cells of the remaining ships, from each depth to the last. */
+    private final int[] cellsFrom;
+
+    /* Masks of the candidate placements of the ship of each depth, and of their halos. */
+    private final long[][] shipLo, shipHi, haloLo, haloHi;
+
+    /* Cells any candidate placement of the ships from each depth to the last could occupy. */
+    private final long[] regionLo, regionHi;
+
+    /* Cells forbidden before any ship is placed: the misses, and the sunk ships with their halos. */
+    private final long forbiddenLo, forbiddenHi;
+
+    /* Hits that do not belong to a sunk ship, which the ships afloat must cover. */
+    private final long pendingLo, pendingHi;
+
+    /* Number of orders of the ships of the same size, the arrangements are counted once per order. */
+    private final long orders;
+
+    /* Completions of partial arrangements, by depth and region. */
+    private final Map<Key, Node> memo = new ConcurrentHashMap<>();
+
+    /**
+     * Create a solver of the passed observations.
+     *
+     * @param view   the opponent's field as seen by the player: its hits and misses.
+     * @param sunkLo the cells of the sunk ships, low word.
+     * @param sunkHi the cells of the sunk ships, high word.
+     * @param afloat the sizes of the ships still afloat, in any order.
+     */
+    public ExactSolver(Board view, long sunkLo, long sunkHi, List<Integer> afloat) {
+        sizes = new int[afloat.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = afloat.get(i);
+        }
+        Arrays.sort(sizes);
+        for (int i = 0, j = sizes.length - 1; i < j; i++, j--) {
+            int size = sizes[i];
+            sizes[i] = sizes[j];
+            sizes[j] = size;
+        }
+
+        long orders = 1;
+        for (int i = 1, run = 1; i < sizes.length; i++) {
+            run = sizes[i] == sizes[i - 1] ? run + 1 : 1;
+            orders *= run;
+        }
+        this.orders = orders;
+
+        /* The sunk ships forbid their halo, which includes their own cells. */
+        long lo = view.getMissesLo();
+        long hi = view.getMissesHi();
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            if (Board.contains(sunkLo, sunkHi, cell)) {
+                lo |= Board.haloLo(cell, 1, false);
+                hi |= Board.haloHi(cell, 1, false);
+            }
+        }
+        forbiddenLo = lo;
+        forbiddenHi = hi;
+        pendingLo = view.getHitsLo() & ~sunkLo;
+        pendingHi = view.getHitsHi() & ~sunkHi;
+
+        int depths = sizes.length;
+        cellsFrom = new int[depths + 1];
+        shipLo = new long[depths][];
+        shipHi = new long[depths][];
+        haloLo = new long[depths][];
+        haloHi = new long[depths][];
+        regionLo = new long[depths + 1];
+        regionHi = new long[depths + 1];
+        for (int depth = depths - 1; depth >= 0; depth--) {
+            cellsFrom[depth] = cellsFrom[depth + 1] + sizes[depth];
+            candidates(depth);
+            regionLo[depth] = regionLo[depth + 1];
+            regionHi[depth] = regionHi[depth + 1];
+            for (int i = 0; i < shipLo[depth].length; i++) {
+                regionLo[depth] |= shipLo[depth][i];
+                regionHi[depth] |= shipHi[depth][i];
+            }
+        }
+    }
+
+    /**
+     * Solve what a player sees of the opponent's field, or get it from a cache of earlier solutions.
+     * Only what the opponent announced is used: the hits and misses, and the ships that were sunk.
+     *
+     * @param opponent the player whose field is solved, on the standard field.
+     * @param cache    the solutions by the hash of the observed field.
+     * @return the solution.
+     */
+    public static Solution solve(Player opponent, TranspositionCache<Solution> cache) {
+        Board board = opponent.getBoard();
+        return cache.computeIfAbsent(board.getHash(), hash -> {
+            long sunkLo = 0;
+            long sunkHi = 0;
+            List<Integer> afloat = new ArrayList<>();
+            for (Battleship battleship : opponent.getBattleships()) {
+                if (battleship.getHitsLeft() == 0) {
+                    sunkLo |= battleship.getMaskLo();
+                    sunkHi |= battleship.getMaskHi();
+                } else {
+                    afloat.add(battleship.getSize());
+                }
+            }
+            return new ExactSolver(board, sunkLo, sunkHi, afloat).solve();
+        });
+    }
+
+    /**
+     * Keep the placements of the ship of a depth that are legal before any other ship is placed.
+     */
+    private void candidates(int depth) {
+        ShipPlacements placements = ShipPlacements.ofSize(sizes[depth]);
+        long[][] kept = new long[4][placements.count];
+        int count = 0;
+        for (int id = 0; id < placements.count; id++) {
+            long lo = placements.shipLo[id];
+            long hi = placements.shipHi[id];
+            if (((lo & forbiddenLo) | (hi & forbiddenHi)) != 0) {
+                continue;
+            }
+            /* A pending hit next to the ship must be part of it, the ship covering it would touch this one. */
+            long touchLo = placements.haloLo[id] & ~lo;
+            long touchHi = placements.haloHi[id] & ~hi;
+            if (((touchLo & pendingLo) | (touchHi & pendingHi)) != 0) {
+                continue;
+            }
+            kept[0][count] = lo;
+            kept[1][count] = hi;
+            kept[2][count] = placements.haloLo[id];
+            kept[3][count] = placements.haloHi[id];
+            count++;
+        }
+        shipLo[depth] = Arrays.copyOf(kept[0], count);
+        shipHi[depth] = Arrays.copyOf(kept[1], count);
+        haloLo[depth] = Arrays.copyOf(kept[2], count);
+        haloHi[depth] = Arrays.copyOf(kept[3], count);
+    }
+
+    /**
+     * Count the arrangements in the common fork/join pool.
+     */
+    public Solution solve() {
+        return solve(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Count the arrangements, searching the placements of the largest ship in parallel.
+     *
+     * @param pool the pool to search in.
+     * @return the number of arrangements and their count per cell.
+     */
+    public Solution solve(ForkJoinPool pool) {
+        Node root = sizes.length == 0
+                ? completions(0, forbiddenLo, forbiddenHi, pendingLo, pendingHi)
+                : pool.invoke(new Search());
+        memo.clear();
+
+        long[] occupancy = new long[Board.CELLS];
+        if (root == null) {
+            return new Solution(0, occupancy);
+        }
+        if (root.cells != null) {
+            for (int cell = 0; cell < Board.CELLS; cell++) {
+                occupancy[cell] = root.cells[cell] / orders;
+            }
+        }
+        return new Solution(root.count / orders, occupancy);
+    }
+
+    /**
+     * The search of the placements of the largest ship, one subtask per placement.
+     */
+    private class Search extends RecursiveTask<Node> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected Node compute() {
+            int count = shipLo[0].length;
+            Branch[] branches = new Branch[count];
+            for (int i = 0; i < count; i++) {
+                branches[i] = new Branch(i);
+            }
+            invokeAll(branches);
+
+            Accumulator total = new Accumulator();
+            for (int i = 0; i < count; i++) {
+                total.add(branches[i].join(), shipLo[0][i], shipHi[0][i]);
+            }
+            return total.toNode();
+        }
+    }
+
+    /**
+     * The completions of the arrangements starting with one placement of the largest ship.
+     */
+    private class Branch extends RecursiveTask<Node> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int placement;
+
+        Branch(int placement) {
+            this.placement = placement;
+        }
+
+        @Override
+        protected Node compute() {
+            return completions(1, forbiddenLo | haloLo[0][placement], forbiddenHi | haloHi[0][placement],
+                    pendingLo & ~shipLo[0][placement], pendingHi & ~shipHi[0][placement]);
+        }
+    }
+
+    /**
+     * Count the ways to place the ships from the passed depth to the last.
+     *
+     * @param depth       the index of the next ship to place.
+     * @param forbiddenLo the cells no ship can occupy anymore, low word.
+     * @param forbiddenHi the cells no ship can occupy anymore, high word.
+     * @param pendingLo   the hits left to cover, low word.
+     * @param pendingHi   the hits left to cover, high word.
+     * @return the completions, or null if there are none.
+     */
+    private Node completions(int depth, long forbiddenLo, long forbiddenHi, long pendingLo, long pendingHi) {
+        if (Long.bitCount(pendingLo) + Long.bitCount(pendingHi) > cellsFrom[depth]) {
+            return null;
+        }
+        if (depth == sizes.length) {
+            return ONE;
+        }
+        if (depth == sizes.length - 1) {
+            Accumulator total = new Accumulator();
+            total.add(lastShip(forbiddenLo, forbiddenHi, pendingLo, pendingHi, total), 0, 0);
+            return total.toNode();
+        }
+
+        /* Only the forbidden cells the remaining ships could occupy tell two partial arrangements apart. */
+        Key key = new Key(depth, forbiddenLo & regionLo[depth], forbiddenHi & regionHi[depth], pendingLo, pendingHi);
+        Node known = memo.get(key);
+        if (known != null) {
+            return known;
+        }
+
+        long[] lo = shipLo[depth];
+        long[] hi = shipHi[depth];
+        boolean beforeLast = depth == sizes.length - 2;
+        Accumulator total = new Accumulator();
+        for (int i = 0; i < lo.length; i++) {
+            if (((lo[i] & forbiddenLo) | (hi[i] & forbiddenHi)) != 0) {
+                continue;
+            }
+            long nextForbiddenLo = forbiddenLo | haloLo[depth][i];
+            long nextForbiddenHi = forbiddenHi | haloHi[depth][i];
+            long nextPendingLo = pendingLo & ~lo[i];
+            long nextPendingHi = pendingHi & ~hi[i];
+            if (beforeLast) {
+                /* The placements of the last ship go straight into the sums, without a node of their own. */
+                long last = lastShip(nextForbiddenLo, nextForbiddenHi, nextPendingLo, nextPendingHi, total);
+                total.add(last, lo[i], hi[i]);
+            } else {
+                total.add(completions(depth + 1, nextForbiddenLo, nextForbiddenHi, nextPendingLo, nextPendingHi),
+                        lo[i], hi[i]);
+            }
+        }
+
+        Node node = total.toNode();
+        if (memo.size() < MEMO_LIMIT) {
+            memo.put(key, node == null ? Node.NONE : node);
+        }
+        return node;
+    }
+
+    /**
+     * Count the placements of the last ship, and add their cells to the sums.
+     *
+     * @return the number of placements that are legal and cover every pending hit.
+     */
+    private long lastShip(long forbiddenLo, long forbiddenHi, long pendingLo, long pendingHi, Accumulator total) {
+        int depth = sizes.length - 1;
+        long[] lo = shipLo[depth];
+        long[] hi = shipHi[depth];
+        long placements = 0;
+        for (int i = 0; i < lo.length; i++) {
+            if (((lo[i] & forbiddenLo) | (hi[i] & forbiddenHi) | (pendingLo & ~lo[i]) | (pendingHi & ~hi[i])) == 0) {
+                total.occupy(1, lo[i], hi[i]);
+                placements++;
+            }
+        }
+        return placements;
+    }
+
+    /**
+     * The completions of a partial arrangement: how many there are and how many of them occupy each cell.
+     */
+    private static final class Node {
+
+        /* Memoised in place of null, which the map cannot hold. */
+        static final Node NONE = new Node(0, null);
+
+        final long count;
+
+        /* Null if no completion occupies any cell. */
+        final long[] cells;
+
+        Node(long count, long[] cells) {
+            this.count = count;
+            this.cells = cells;
+        }
+    }
+
+    /**
+     * Sums the completions of the placements of a ship into the completions of the partial arrangement.
+     */
+    private static final class Accumulator {
+
+        private long count;
+        private long[] cells;
+
+        /**
+         * Add the completions following one placement of the ship.
+         *
+         * @param next   the completions after the placement, null or empty if there are none.
+         * @param shipLo the cells of the placement, low word.
+         * @param shipHi the cells of the placement, high word.
+         */
+        void add(Node next, long shipLo, long shipHi) {
+            if (next == null || next.count == 0) {
+                return;
+            }
+            if (next.cells != null) {
+                occupy(0, 0, 0);
+                for (int cell = 0; cell < Board.CELLS; cell++) {
+                    cells[cell] += next.cells[cell];
+                }
+            }
+            add(next.count, shipLo, shipHi);
+        }
+
+        /**
+         * Add completions following one placement of the ship, whose cells were already added.
+         *
+         * @param completions the number of completions after the placement.
+         * @param shipLo      the cells of the placement, low word.
+         * @param shipHi      the cells of the placement, high word.
+         */
+        void add(long completions, long shipLo, long shipHi) {
+            count += completions;
+            occupy(completions, shipLo, shipHi);
+        }
+
+        /**
+         * Add arrangements to the counts of the cells of a placement.
+         */
+        void occupy(long arrangements, long shipLo, long shipHi) {
+            if (cells == null) {
+                cells = new long[Board.CELLS];
+            }
+            for (long bits = shipLo; bits != 0; bits &= bits - 1) {
+                cells[Long.numberOfTrailingZeros(bits)] += arrangements;
+            }
+            for (long bits = shipHi; bits != 0; bits &= bits - 1) {
+                cells[64 + Long.numberOfTrailingZeros(bits)] += arrangements;
+            }
+        }
+
+        Node toNode() {
+            return count == 0 ? null : new Node(count, cells);
+        }
+    }
+
+    /**
+     * Identifies the completions of partial arrangements at a depth.
+     */
+    private static final class Key {
+
+        private final int depth;
+        private final long forbiddenLo, forbiddenHi, pendingLo, pendingHi;
+
+        Key(int depth, long forbiddenLo, long forbiddenHi, long pendingLo, long pendingHi) {
+            this.depth = depth;
+            this.forbiddenLo = forbiddenLo;
+            this.forbiddenHi = forbiddenHi;
+            this.pendingLo = pendingLo;
+            this.pendingHi = pendingHi;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return depth == key.depth && forbiddenLo == key.forbiddenLo && forbiddenHi == key.forbiddenHi
+                    && pendingLo == key.pendingLo && pendingHi == key.pendingHi;
+        }
+
+        @Override
+        public int hashCode() {
+            long hash = depth;
+            hash = hash * 0x9E3779B97F4A7C15L + forbiddenLo;
+            hash = hash * 0x9E3779B97F4A7C15L + forbiddenHi;
+            hash = hash * 0x9E3779B97F4A7C15L + pendingLo;
+            hash = hash * 0x9E3779B97F4A7C15L + pendingHi;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+
+    /**
+     * The number of arrangements consistent with the observations, and how many of them occupy each cell.
+     */
+    public static final class Solution {
+
+        private final long arrangements;
+        private final long[] occupancy;
+
+        Solution(long arrangements, long[] occupancy) {
+            this.arrangements = arrangements;
+            this.occupancy = occupancy;
+        }
+
+        /**
+         * Get the number of distinct arrangements of the ships afloat, 0 if the observations are inconsistent.
+         */
+        public long getArrangements() {
+            return arrangements;
+        }
+
+        /**
+         * Get the number of arrangements with a ship on the passed cell.
+         */
+        public long getOccupancy(int cell) {
+            return occupancy[cell];
+        }
+
+        /**
+         * Get the exact probability of a ship afloat on the passed cell, 0 if there is no arrangement.
+         */
+        public double probability(int cell) {
+            return arrangements == 0 ? 0 : (double) occupancy[cell] / arrangements;
+        }
+
+        /**
+         * Get the unshot cell most likely to hold a ship, the first one of the ties.
+         *
+         * @param view the opponent's field as seen by the player.
+         * @return the cell, or -1 if every cell was shot.
+         */
+        public int bestShot(Board view) {
+            int best = -1;
+            for (int cell = 0; cell < Board.CELLS; cell++) {
+                if (!view.isShot(cell) && (best == -1 || occupancy[cell] > occupancy[best])) {
+                    best = cell;
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package battleship.ai;
+
+/**
+ * Sums weighted placement counts into a heatmap: the density of each cell is the sum, over the ship sizes, of the
+ * number of placements of that size covering the cell times the number of ships of that size afloat.
+ * <p>
+ * The scalar kernel runs everywhere. A kernel using the Vector API of {@code jdk.incubator.vector} is compiled from
+ * the {@code src-vector} source root on JDK 17 and later, and is picked by {@link #get()} when both its class and the
+ * module are present, that is when the JVM runs with {@code --add-modules jdk.incubator.vector}. The system property
+ * {@code battleship.heatmap=scalar} forces the scalar kernel. Both kernels give the same heatmaps, int overflow
+ * included.
+ */
+public interface HeatmapKernel {
+
+    /**
+     * Compute the heatmap of a set of placement count planes.
+     *
+     * @param planes  the planes, each one holding per cell the number of placements covering it.
+     * @param weights the weight of each plane.
+     * @param count   the number of planes to sum, the first entries of the planes and weights.
+     * @param heat    receives per cell the sum of the weighted planes.
+     * @param cells   the number of cells of the planes and of the heatmap.
+     */
+    void accumulate(int[][] planes, int[] weights, int count, int[] heat, int cells);
+
+    /**
+     * Get the fastest kernel available in this JVM.
+     */
+    static HeatmapKernel get() {
+        return Kernels.BEST;
+    }
+
+    /**
+     * Get the scalar kernel, available everywhere.
+     */
+    static HeatmapKernel scalar() {
+        return Kernels.SCALAR;
+    }
+
+    /**
+     * Get the kernel using the Vector API.
+     *
+     * @return the kernel, or null if the Vector API or the kernel compiled against it is not available.
+     */
+    static HeatmapKernel vector() {
+        return Kernels.VECTOR;
+    }
+}
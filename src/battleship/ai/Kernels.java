@@ -0,0 +1,61 @@
+package battleship.ai;
+
+import java.util.Arrays;
+
+/**
+ * The heatmap kernels of this JVM, see {@link HeatmapKernel}.
+ */
+final class Kernels {
+
+    /* The class of the kernel using the Vector API, in the src-vector source root. */
+    private static final String VECTOR_CLASS = "battleship.ai.VectorHeatmapKernel";
+
+    static final HeatmapKernel SCALAR = new ScalarHeatmapKernel();
+
+    static final HeatmapKernel VECTOR = loadVector();
+
+    static final HeatmapKernel BEST = VECTOR == null || "scalar".equals(System.getProperty("battleship.heatmap"))
+            ? SCALAR
+            : VECTOR;
+
+    private Kernels() {
+    }
+
+    /**
+     * Load the kernel using the Vector API by reflection, so this class still loads where the kernel was not
+     * compiled or the module is not resolved.
+     */
+    private static HeatmapKernel loadVector() {
+        if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            return null;
+        }
+        try {
+            return (HeatmapKernel) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Adds the planes one after the other, in simple loops over the cells that the JIT may vectorize on its own.
+     */
+    private static final class ScalarHeatmapKernel implements HeatmapKernel {
+
+        @Override
+        public void accumulate(int[][] planes, int[] weights, int count, int[] heat, int cells) {
+            Arrays.fill(heat, 0, cells, 0);
+            for (int k = 0; k < count; k++) {
+                int weight = weights[k];
+                int[] plane = planes[k];
+                for (int cell = 0; cell < cells; cell++) {
+                    heat[cell] += weight * plane[cell];
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "scalar";
+        }
+    }
+}
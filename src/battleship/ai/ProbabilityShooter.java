@@ -0,0 +1,429 @@
+package battleship.ai;
+
+import battleship.data.Battleship;
+import battleship.data.Board;
+import battleship.data.Field;
+import battleship.data.Player;
+import battleship.data.ShipPlacements;
+import battleship.data.ShotResult;
+import battleship.sim.ShootingStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Shoots at the cell covered by the largest number of legal placements of the ships that are still afloat.
+ * <p>
+ * For each ship size the shooter keeps which placements are still possible and, per cell, how many of them cover it.
+ * Both are updated incrementally from the result of each shot by walking only the placements that cross or touch
+ * the shot cell: a miss rules out the placements crossing it, and a hit rules out the placements touching it,
+ * since ships never touch each other. Once a ship is hit and not sunk yet, the shooter switches to target mode and
+ * only counts the placements that go through the pending hits.
+ * <p>
+ * With an {@link EndgameSolver}, the shots at the last few ships are those of the solver, unless it gives up.
+ * <p>
+ * The placement tables are those of the standard field, so this shooter only plays on a {@link Board}.
+ */
+public class ProbabilityShooter implements ShootingStrategy {
+
+    /* Distinct sizes of the fleet's ships. */
+    private final int[] sizes;
+
+    /* Number of ships of each size in the fleet, and how many of them are still afloat, indexed by size. */
+    private final int[] ships = new int[Board.SIZE + 1];
+    private final int[] afloat = new int[Board.SIZE + 1];
+
+    /* Placements ruled out so far, indexed by size then placement. */
+    private final boolean[][] dead = new boolean[Board.SIZE + 1][];
+
+    /* Number of possible placements covering each cell, indexed by size then cell. */
+    private final int[][] cover = new int[Board.SIZE + 1][];
+
+    /* The cover counts of each distinct size, in the order of the sizes, and their weights: the number of ships of
+     * the size afloat. The kernel sums them into the hunt mode densities. */
+    private final int[][] planes;
+    private final int[] weights;
+    private final HeatmapKernel kernel = HeatmapKernel.get();
+
+    /* Hits that do not belong to a sunk ship yet, and cells of the sunk ships. */
+    private long pendingLo, pendingHi;
+    private long sunkLo, sunkHi;
+
+    /* Takes the last shots, null to keep to the placement counts. */
+    private final EndgameSolver endgame;
+
+    /* Scratch space of the target mode scores, of the hunt mode densities and of the sunk ship flood fill. */
+    private final int[] score = new int[Board.CELLS];
+    private final int[] density = new int[Board.CELLS];
+    private final int[] stack = new int[Board.CELLS];
+
+    /**
+     * Create a shooter that plays against the standard fleet.
+     */
+    public ProbabilityShooter() {
+        this(Player.standardFleet());
+    }
+
+    /**
+     * Create a shooter that plays against the passed fleet.
+     *
+     * @param fleet the ships the opponent places on the field.
+     */
+    public ProbabilityShooter(List<Battleship> fleet) {
+        this(fleet, null);
+    }
+
+    /**
+     * Create a shooter that plays against the passed fleet and lets a solver take the last shots.
+     *
+     * @param fleet   the ships the opponent places on the field.
+     * @param endgame the solver of the positions with few ships afloat, shared by the shooters of this fleet,
+     *                or null.
+     */
+    public ProbabilityShooter(List<Battleship> fleet, EndgameSolver endgame) {
+        this.endgame = endgame;
+        int distinct = 0;
+        for (Battleship battleship : fleet) {
+            if (ships[battleship.getSize()]++ == 0) {
+                distinct++;
+            }
+        }
+
+        sizes = new int[distinct];
+        planes = new int[distinct][];
+        weights = new int[distinct];
+        for (int size = 1, i = 0; size <= Board.SIZE; size++) {
+            if (ships[size] == 0) {
+                continue;
+            }
+            dead[size] = new boolean[ShipPlacements.ofSize(size).count];
+            cover[size] = new int[Board.CELLS];
+            planes[i] = cover[size];
+            sizes[i++] = size;
+        }
+        reset();
+    }
+
+    /**
+     * Bring every ship back afloat and every placement back in play.
+     */
+    @Override
+    public boolean reset() {
+        pendingLo = 0;
+        pendingHi = 0;
+        sunkLo = 0;
+        sunkHi = 0;
+        for (int size : sizes) {
+            afloat[size] = ships[size];
+            Arrays.fill(dead[size], false);
+            ShipPlacements placements = ShipPlacements.ofSize(size);
+            for (int cell = 0; cell < Board.CELLS; cell++) {
+                cover[size][cell] = placements.crossing[cell].length;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int nextShot(Field field, SplittableRandom random) {
+        if (!(field instanceof Board)) {
+            throw new IllegalArgumentException("Only plays on the standard field");
+        }
+        Board target = (Board) field;
+        if (endgame != null) {
+            int shot = solveEndgame(target);
+            if (shot != -1) {
+                return shot;
+            }
+        }
+        if ((pendingLo | pendingHi) != 0) {
+            int shot = target(target, random);
+            if (shot != -1) {
+                return shot;
+            }
+        }
+        return hunt(target, random);
+    }
+
+    /**
+     * Get the shot of the endgame solver, if few enough ships are afloat and it solves the position.
+     *
+     * @return the cell, or -1 to pick it from the placement counts.
+     */
+    private int solveEndgame(Board target) {
+        int ships = 0;
+        for (int size : sizes) {
+            ships += afloat[size];
+        }
+        if (ships > endgame.getMaxShips()) {
+            return -1;
+        }
+
+        List<Integer> left = new ArrayList<>(ships);
+        for (int size : sizes) {
+            for (int i = 0; i < afloat[size]; i++) {
+                left.add(size);
+            }
+        }
+        EndgameSolver.Plan plan = endgame.solve(target, sunkLo, sunkHi, left);
+        return plan == null ? -1 : plan.getCell();
+    }
+
+    /**
+     * Pick the unshot cells with the highest target mode scores, then the highest densities, so a salvo both finishes
+     * the ships that were hit and hunts for the others.
+     */
+    @Override
+    public int nextSalvo(Field field, int shots, SplittableRandom random, int[] cells) {
+        if (!(field instanceof Board)) {
+            throw new IllegalArgumentException("Only plays on the standard field");
+        }
+        Board target = (Board) field;
+        scoreTargets(target);
+        computeDensities();
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            if (target.isShot(cell)) {
+                density[cell] = -1;
+            }
+        }
+
+        int count = 0;
+        while (count < shots) {
+            int choice = -1;
+            int ties = 0;
+            for (int cell = 0; cell < Board.CELLS; cell++) {
+                if (density[cell] < 0) {
+                    continue;
+                }
+                int order = choice == -1 ? 1 : compareSalvoCells(cell, choice);
+                if (order > 0) {
+                    choice = cell;
+                    ties = 1;
+                } else if (order == 0 && random.nextInt(++ties) == 0) {
+                    choice = cell;
+                }
+            }
+            if (choice == -1) {
+                break;
+            }
+            cells[count++] = choice;
+            density[choice] = -1;
+        }
+        return count;
+    }
+
+    private int compareSalvoCells(int a, int b) {
+        int order = Integer.compare(score[a], score[b]);
+        return order != 0 ? order : Integer.compare(density[a], density[b]);
+    }
+
+    /**
+     * Compute the density of every cell, shot or not: the number of possible placements covering it, weighted by the
+     * number of ships of their size afloat.
+     */
+    private void computeDensities() {
+        for (int i = 0; i < sizes.length; i++) {
+            weights[i] = afloat[sizes[i]];
+        }
+        kernel.accumulate(planes, weights, sizes.length, density, Board.CELLS);
+    }
+
+    /**
+     * Pick the unshot cell covered by most of the possible placements.
+     */
+    private int hunt(Board target, SplittableRandom random) {
+        computeDensities();
+        int best = -1;
+        int choice = -1;
+        int ties = 0;
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            if (target.isShot(cell)) {
+                continue;
+            }
+
+            /* Break ties uniformly, keeping each tied cell with probability 1/ties. */
+            if (density[cell] > best) {
+                best = density[cell];
+                choice = cell;
+                ties = 1;
+            } else if (density[cell] == best && random.nextInt(++ties) == 0) {
+                choice = cell;
+            }
+        }
+
+        if (choice == -1) {
+            throw new IllegalStateException("No cell left to shoot at");
+        }
+        return choice;
+    }
+
+    /**
+     * Pick the unshot cell covered by most of the possible placements that go through the pending hits.
+     * A placement going through several hits is counted once per hit, so lines of hits are extended first.
+     *
+     * @return the cell to shoot at, or -1 if no possible placement goes through the pending hits.
+     */
+    private int target(Board target, SplittableRandom random) {
+        scoreTargets(target);
+
+        int best = 0;
+        int choice = -1;
+        int ties = 0;
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            if (score[cell] > best) {
+                best = score[cell];
+                choice = cell;
+                ties = 1;
+            } else if (score[cell] == best && best > 0 && random.nextInt(++ties) == 0) {
+                choice = cell;
+            }
+        }
+        return choice;
+    }
+
+    /**
+     * Score each unshot cell by the possible placements going through the pending hits that cover it.
+     */
+    private void scoreTargets(Board target) {
+        Arrays.fill(score, 0);
+        for (long bits = pendingLo; bits != 0; bits &= bits - 1) {
+            scorePlacementsThrough(Long.numberOfTrailingZeros(bits), target);
+        }
+        for (long bits = pendingHi; bits != 0; bits &= bits - 1) {
+            scorePlacementsThrough(64 + Long.numberOfTrailingZeros(bits), target);
+        }
+    }
+
+    private void scorePlacementsThrough(int hit, Board target) {
+        for (int size : sizes) {
+            if (afloat[size] == 0) {
+                continue;
+            }
+
+            ShipPlacements placements = ShipPlacements.ofSize(size);
+            for (int id : placements.crossing[hit]) {
+                if (dead[size][id]) {
+                    continue;
+                }
+
+                int step = placements.stepOf(id);
+                for (int i = 0, cell = placements.start[id]; i < size; i++, cell += step) {
+                    if (!target.isShot(cell)) {
+                        score[cell] += afloat[size];
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onShotResult(int index, ShotResult result) {
+        switch (result) {
+            case MISS:
+                killCrossing(index);
+                break;
+
+            case HIT:
+                addPendingHit(index);
+                break;
+
+            case SUNK:
+            case WIN:
+                addPendingHit(index);
+                sink(index);
+                break;
+        }
+    }
+
+    /**
+     * Record a hit. No other ship can touch the hit one, so the placements touching the cell are ruled out.
+     */
+    private void addPendingHit(int index) {
+        pendingLo |= Board.bitLo(index);
+        pendingHi |= Board.bitHi(index);
+
+        for (int size : sizes) {
+            ShipPlacements placements = ShipPlacements.ofSize(size);
+            for (int id : placements.touching[index]) {
+                kill(size, id);
+            }
+        }
+    }
+
+    /**
+     * Resolve the ship sunk by the hit on the passed cell.
+     * Ships never touch, so the sunk ship is exactly the group of pending hits connected to the cell.
+     */
+    private void sink(int index) {
+        int sunkCells = 0;
+        int top = 0;
+        stack[top++] = index;
+        pendingLo &= ~Board.bitLo(index);
+        pendingHi &= ~Board.bitHi(index);
+        while (top > 0) {
+            int cell = stack[--top];
+            sunkCells++;
+            sunkLo |= Board.bitLo(cell);
+            sunkHi |= Board.bitHi(cell);
+            killCrossing(cell);
+
+            int row = cell / Board.SIZE;
+            int col = cell % Board.SIZE;
+            if (row > 0) {
+                top = pushIfPending(cell - Board.SIZE, top);
+            }
+            if (row < Board.SIZE - 1) {
+                top = pushIfPending(cell + Board.SIZE, top);
+            }
+            if (col > 0) {
+                top = pushIfPending(cell - 1, top);
+            }
+            if (col < Board.SIZE - 1) {
+                top = pushIfPending(cell + 1, top);
+            }
+        }
+
+        if (sunkCells <= Board.SIZE && afloat[sunkCells] > 0) {
+            afloat[sunkCells]--;
+        }
+    }
+
+    private int pushIfPending(int cell, int top) {
+        if (Board.contains(pendingLo, pendingHi, cell)) {
+            pendingLo &= ~Board.bitLo(cell);
+            pendingHi &= ~Board.bitHi(cell);
+            stack[top++] = cell;
+        }
+        return top;
+    }
+
+    /**
+     * Rule out the placements of all sizes crossing the passed cell.
+     */
+    private void killCrossing(int index) {
+        for (int size : sizes) {
+            ShipPlacements placements = ShipPlacements.ofSize(size);
+            for (int id : placements.crossing[index]) {
+                kill(size, id);
+            }
+        }
+    }
+
+    /**
+     * Rule out a placement and take it off the cover counts of its cells.
+     */
+    private void kill(int size, int id) {
+        if (dead[size][id]) {
+            return;
+        }
+        dead[size][id] = true;
+
+        ShipPlacements placements = ShipPlacements.ofSize(size);
+        int step = placements.stepOf(id);
+        for (int i = 0, cell = placements.start[id]; i < size; i++, cell += step) {
+            cover[size][cell]--;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package battleship.ai;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * A bounded cache of evaluations of positions, such as solutions or best shots, keyed by the Zobrist hash of the
+ * observed field (see {@link battleship.data.Field#getHash()}), shared by the threads of a self-play run.
+ * <p>
+ * The cache is split into stripes by the high bits of the hash, each one an open addressing table under its own
+ * lock, so threads working on different positions rarely wait for each other. When a stripe is full it evicts by
+ * CLOCK: a hand sweeps the entries, sparing once those that were read since its last pass. Two positions with the
+ * same 64-bit hash share their entry; such a collision is unlikely enough to be ignored.
+ *
+ * @param <V> the type of the evaluations.
+ */
+public class TranspositionCache<V> {
+
+    /* Number of stripes, a power of two. */
+    private static final int STRIPES = 16;
+
+    private final Stripe<V>[] stripes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create an empty cache.
+     *
+     * @param capacity the most evaluations kept, rounded up to a multiple of the number of stripes.
+     */
+    @SuppressWarnings("unchecked")
+    public TranspositionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        stripes = (Stripe<V>[]) new Stripe<?>[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe<>(Math.max(1, (capacity + STRIPES - 1) / STRIPES));
+        }
+    }
+
+    private Stripe<V> stripeOf(long hash) {
+        return stripes[(int) (hash >>> 60) & (STRIPES - 1)];
+    }
+
+    /**
+     * Get the evaluation of a position.
+     *
+     * @param hash the hash of the position.
+     * @return the evaluation, or null if it is not cached.
+     */
+    public V get(long hash) {
+        V value = stripeOf(hash).get(hash);
+        (value == null ? misses : hits).increment();
+        return value;
+    }
+
+    /**
+     * Cache the evaluation of a position, evicting another one if the stripe is full.
+     *
+     * @param hash  the hash of the position.
+     * @param value the evaluation, not null.
+     */
+    public void put(long hash, V value) {
+        if (value == null) {
+            throw new NullPointerException("The value of " + hash + " is null");
+        }
+        stripeOf(hash).put(hash, value);
+    }
+
+    /**
+     * Get the evaluation of a position, computing and caching it if it is not cached. The computation runs outside
+     * of the lock, so two threads missing the same position at once may both compute it.
+     *
+     * @param hash     the hash of the position.
+     * @param evaluate computes the evaluation from the hash.
+     * @return the cached or computed evaluation.
+     */
+    public V computeIfAbsent(long hash, LongFunction<V> evaluate) {
+        V value = get(hash);
+        if (value == null) {
+            value = evaluate.apply(hash);
+            put(hash, value);
+        }
+        return value;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of evaluations cached.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * A table of at most a given number of entries with linear probing, where an empty slot has a null value.
+     */
+    private static final class Stripe<V> {
+
+        private final long[] keys;
+        private final Object[] values;
+
+        /* Whether each entry was read since the hand last passed it. */
+        private final boolean[] referenced;
+
+        private final int limit;
+        private final int mask;
+        private int size;
+
+        /* The slot the CLOCK hand points at. */
+        private int hand;
+
+        Stripe(int limit) {
+            int capacity = Integer.highestOneBit(limit * 2 - 1) * 2;
+            keys = new long[capacity];
+            values = new Object[capacity];
+            referenced = new boolean[capacity];
+            this.limit = limit;
+            this.mask = capacity - 1;
+        }
+
+        private int home(long hash) {
+            return (int) (hash ^ (hash >>> 29)) & mask;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized V get(long hash) {
+            for (int i = home(hash); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == hash) {
+                    referenced[i] = true;
+                    return (V) values[i];
+                }
+            }
+            return null;
+        }
+
+        synchronized void put(long hash, Object value) {
+            int i = home(hash);
+            for (; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == hash) {
+                    values[i] = value;
+                    return;
+                }
+            }
+
+            if (size == limit) {
+                evict();
+                /* The eviction may have shifted entries into the free slot that was found. */
+                i = home(hash);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+            }
+            keys[i] = hash;
+            values[i] = value;
+            referenced[i] = false;
+            size++;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * Advance the hand to the first entry that was not read since its last pass, and remove it.
+         */
+        private void evict() {
+            while (true) {
+                hand = (hand + 1) & mask;
+                if (values[hand] == null) {
+                    continue;
+                }
+                if (referenced[hand]) {
+                    referenced[hand] = false;
+                } else {
+                    remove(hand);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Remove the entry of a slot, shifting back the entries after it that could no longer be found.
+         */
+        private void remove(int slot) {
+            values[slot] = null;
+            size--;
+            int free = slot;
+            for (int i = (slot + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+                int home = home(keys[i]);
+                /* The entry stays if its home lies cyclically after the free slot, up to its own slot. */
+                boolean stays = free <= i ? free < home && home <= i : free < home || home <= i;
+                if (!stays) {
+                    keys[free] = keys[i];
+                    values[free] = values[i];
+                    referenced[free] = referenced[i];
+                    values[i] = null;
+                    free = i;
+                }
+            }
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package battleship.data;
 
-import static battleship.data.Player.*;
-
 public class Battleship {
 
     /* Type of the ship. An Aircraft Carrier, Battleship, Submarine...etc. */
@@ -11,11 +9,17 @@ public class Battleship {
     private final int size;
 
     /* Coordinates of the battleship. */
-    private String cord1, cord2;
+    private Coordinate cord1, cord2;
 
     /* Physical orientation of the battleship, horizontal or vertical. */
     private String orientation;
 
+    /* Cells occupied by the battleship on a standard board, see Board for the layout. Empty on other fields. */
+    private long maskLo, maskHi;
+
+    /* Number of cells of the battleship that were not hit yet. */
+    private int hitsLeft;
+
     /**
      * Create a battleship by specifying its type and size.
      *
@@ -35,71 +39,90 @@ public class Battleship {
         return size;
     }
 
-    public String getCord1() {
+    public Coordinate getCord1() {
         return cord1;
     }
 
-    public void setCord1(String cord1) {
+    public void setCord1(Coordinate cord1) {
         this.cord1 = cord1;
     }
 
-    public String getCord2() {
+    public Coordinate getCord2() {
         return cord2;
     }
 
-    public void setCord2(String cord2) {
+    public void setCord2(Coordinate cord2) {
         this.cord2 = cord2;
     }
 
+    public String getOrientation() {
+        return orientation;
+    }
+
     public void setOrientation(String orientation) {
         this.orientation = orientation;
     }
 
+    /**
+     * Set the cells occupied by this battleship on the board. None of them is hit yet.
+     *
+     * @param maskLo the low word of the ship's mask, see {@link Board}.
+     * @param maskHi the high word of the ship's mask.
+     */
+    void setMask(long maskLo, long maskHi) {
+        this.maskLo = maskLo;
+        this.maskHi = maskHi;
+        resetHits();
+    }
+
+    /**
+     * Mark all the cells of this battleship as not hit, when it is placed on a field.
+     */
+    void resetHits() {
+        this.hitsLeft = size;
+    }
+
+    /**
+     * Take this battleship off the field, so it can be placed again in another game.
+     */
+    void reset() {
+        cord1 = null;
+        cord2 = null;
+        orientation = null;
+        maskLo = 0;
+        maskHi = 0;
+        hitsLeft = 0;
+    }
+
+    public long getMaskLo() {
+        return maskLo;
+    }
+
+    public long getMaskHi() {
+        return maskHi;
+    }
+
+    public int getHitsLeft() {
+        return hitsLeft;
+    }
+
+    /**
+     * Record a hit on a cell of this battleship that was not hit before.
+     *
+     * @return true if the hit sank the battleship, otherwise false.
+     */
+    boolean hit() {
+        return --hitsLeft == 0;
+    }
+
     /**
      * Check if this battleship has sunk. A battleship is sunk if all of its cells were hit.
      *
+     * @param board      the board in which to check the battleship still exists or not.
      * @param battleship the battleship to check.
-     * @param field      the field in which to check the battleship still exists or not.
      * @return true if the battleship is sunk, otherwise false.
      */
-    public static boolean isSunk(char[][] field, Battleship battleship) {
-        switch (battleship.orientation) {
-            case "horizontal":
-                /* In horizontal mode, the difference is in the columns. */
-                int row = extractRowIndex(battleship.getCord1().charAt(0));
-                int cord1Col = extractColIndex(battleship.getCord1().substring(1));
-                int cord2Col = extractColIndex(battleship.getCord2().substring(1));
-
-                int startColIndex = Math.min(cord1Col, cord2Col);
-                int endColIndex = Math.max(cord1Col, cord2Col);
-                /* If a single O found, then ship is still alive and not sunk yet. */
-                for (int i = startColIndex; i <= endColIndex; i++) {
-                    if (field[row][i] == 'O') {
-                        return false;
-                    }
-                }
-
-                return true;
-
-            case "vertical":
-                /* In vertical mode, the difference is in the rows. */
-                int col = extractColIndex(battleship.getCord1().substring(1));
-                int cord1Row = extractRowIndex(battleship.getCord1().charAt(0));
-                int cord2Row = extractRowIndex(battleship.getCord2().charAt(0));
-
-                int startRowIndex = Math.min(cord1Row, cord2Row);
-                int endRowIndex = Math.max(cord1Row, cord2Row);
-                /* If a single O found, the ship is still alive and not sunk yet. */
-                for (int i = startRowIndex; i <= endRowIndex; i++) {
-                    if (field[i][col] == 'O') {
-                        return false;
-                    }
-                }
-
-                return true;
-
-            default:
-                throw new IllegalStateException("Unknown orientation of battleship " + battleship.orientation);
-        }
-    }
-}
\ No newline at end of file
+    public static boolean isSunk(Board board, Battleship battleship) {
+        return board.isCovered(battleship.maskLo, battleship.maskHi);
+    }
+}
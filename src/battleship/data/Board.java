@@ -0,0 +1,342 @@
+package battleship.data;
+
+import java.util.Arrays;
+
+/**
+ * The standard 10x10 battlefield backed by bitboards.
+ * <p>
+ * Each plane (ships, hits and misses) is a 100-bit set packed into two longs: cells 0..63 live in the low word and
+ * cells 64..99 in the low 36 bits of the high word. A cell index is {@code row * 10 + col}, so A1 is 0 and J10 is 99.
+ * The fog of war view is not stored separately, it is derived from the hit and miss planes.
+ */
+public class Board extends Field {
+
+    /* Number of rows and columns on the field. */
+    public static final int SIZE = 10;
+
+    /* Number of cells on the field. */
+    public static final int CELLS = SIZE * SIZE;
+
+    /* Cells occupied by ships. */
+    long shipsLo, shipsHi;
+
+    /* Cells no other ship can occupy: the halos of the ships, that is their cells plus their neighbours. */
+    long forbiddenLo, forbiddenHi;
+
+    /* Cells that were shot and contained a ship. */
+    long hitsLo, hitsHi;
+
+    /* Cells that were shot and were empty. */
+    long missesLo, missesHi;
+
+    /* For each cell, the number of the ship occupying it, 0 if empty. */
+    private final byte[] shipAt = new byte[CELLS];
+
+    /**
+     * Create an empty standard field.
+     */
+    public Board() {
+        super(SIZE, SIZE);
+    }
+
+    /**
+     * Get the cell index of the passed row and column indexes.
+     *
+     * @param row index of the cell.
+     * @param col index of the cell.
+     * @return the cell index in range [0, 99].
+     */
+    public static int indexOf(int row, int col) {
+        return row * SIZE + col;
+    }
+
+    /**
+     * Get the low word bit of the passed cell index.
+     *
+     * @param index of the cell.
+     * @return the bit of the cell if it lives in the low word, otherwise 0.
+     */
+    public static long bitLo(int index) {
+        return index < 64 ? 1L << index : 0L;
+    }
+
+    /**
+     * Get the high word bit of the passed cell index.
+     *
+     * @param index of the cell.
+     * @return the bit of the cell if it lives in the high word, otherwise 0.
+     */
+    public static long bitHi(int index) {
+        return index >= 64 ? 1L << (index - 64) : 0L;
+    }
+
+    /**
+     * Returns whether the passed cell index is set in the mask represented by lo & hi.
+     */
+    public static boolean contains(long lo, long hi, int index) {
+        return index < 64 ? (lo >>> index & 1L) != 0 : (hi >>> (index - 64) & 1L) != 0;
+    }
+
+    /**
+     * Returns whether this cell holds no ship.
+     *
+     * @param row the row of which the cell is located.
+     * @param col the column of which the cell is located.
+     * @return true if the specified cell is empty, otherwise false.
+     */
+    public boolean isEmpty(int row, int col) {
+        return !contains(shipsLo, shipsHi, indexOf(row, col));
+    }
+
+    @Override
+    void clear() {
+        super.clear();
+        shipsLo = shipsHi = 0;
+        forbiddenLo = forbiddenHi = 0;
+        hitsLo = hitsHi = 0;
+        missesLo = missesHi = 0;
+        Arrays.fill(shipAt, (byte) 0);
+    }
+
+    @Override
+    public boolean hasShip(int index) {
+        return contains(shipsLo, shipsHi, index);
+    }
+
+    @Override
+    public boolean isHit(int index) {
+        return contains(hitsLo, hitsHi, index);
+    }
+
+    @Override
+    public boolean isMiss(int index) {
+        return contains(missesLo, missesHi, index);
+    }
+
+    @Override
+    public boolean isShot(int index) {
+        return contains(hitsLo | missesLo, hitsHi | missesHi, index);
+    }
+
+    /**
+     * Returns whether any cell of the passed mask holds a ship.
+     */
+    public boolean intersects(long lo, long hi) {
+        return ((shipsLo & lo) | (shipsHi & hi)) != 0;
+    }
+
+    /**
+     * Returns whether every cell of the passed mask was hit.
+     */
+    public boolean isCovered(long lo, long hi) {
+        return ((lo & ~hitsLo) | (hi & ~hitsHi)) == 0;
+    }
+
+    @Override
+    int shipAt(int index) {
+        return shipAt[index];
+    }
+
+    /**
+     * Check a placement with a single intersection of its precomputed mask against the forbidden cells of the board.
+     * Only a rejected placement is checked again against the ships, to tell a crossing from a touching.
+     */
+    @Override
+    public PlacementResult check(int start, int size, boolean vertical) {
+        if (!fits(start, size, vertical)) {
+            return PlacementResult.WRONG_LENGTH;
+        }
+
+        ShipPlacements table = ShipPlacements.ofSize(size);
+        int id = table.idOf(start, vertical);
+        long lo = table.shipLo[id];
+        long hi = table.shipHi[id];
+        if (((lo & forbiddenLo) | (hi & forbiddenHi)) == 0) {
+            return PlacementResult.PLACED;
+        }
+        return intersects(lo, hi) ? PlacementResult.INTERSECTION : PlacementResult.TOO_CLOSE;
+    }
+
+    @Override
+    void addShip(int start, int size, boolean vertical, int ship) {
+        ShipPlacements table = ShipPlacements.ofSize(size);
+        int id = table.idOf(start, vertical);
+        shipsLo |= table.shipLo[id];
+        shipsHi |= table.shipHi[id];
+        forbiddenLo |= table.haloLo[id];
+        forbiddenHi |= table.haloHi[id];
+        for (int i = 0, cell = start; i < size; i++, cell += vertical ? SIZE : 1) {
+            shipAt[cell] = (byte) ship;
+        }
+    }
+
+    @Override
+    boolean shoot(int index) {
+        long lo = bitLo(index);
+        long hi = bitHi(index);
+        if (((shipsLo & lo) | (shipsHi & hi)) != 0) {
+            hashShot(index, true);
+            hitsLo |= lo;
+            hitsHi |= hi;
+            return true;
+        }
+
+        hashShot(index, false);
+        missesLo |= lo;
+        missesHi |= hi;
+        return false;
+    }
+
+    /**
+     * Mark all the cells of a mask as shot at once, such as the cells of a salvo.
+     *
+     * @param lo the low word of the shot cells.
+     * @param hi the high word of the shot cells.
+     */
+    void shootAll(long lo, long hi) {
+        for (long bits = lo & ~(hitsLo | missesLo); bits != 0; bits &= bits - 1) {
+            int index = Long.numberOfTrailingZeros(bits);
+            hashShot(index, contains(shipsLo, shipsHi, index));
+        }
+        for (long bits = hi & ~(hitsHi | missesHi); bits != 0; bits &= bits - 1) {
+            int index = 64 + Long.numberOfTrailingZeros(bits);
+            hashShot(index, contains(shipsLo, shipsHi, index));
+        }
+        hitsLo |= lo & shipsLo;
+        hitsHi |= hi & shipsHi;
+        missesLo |= lo & ~shipsLo;
+        missesHi |= hi & ~shipsHi;
+    }
+
+    @Override
+    public void record(int index, boolean hit) {
+        hashShot(index, hit);
+        if (hit) {
+            hitsLo |= bitLo(index);
+            hitsHi |= bitHi(index);
+        } else {
+            missesLo |= bitLo(index);
+            missesHi |= bitHi(index);
+        }
+    }
+
+    /**
+     * Get the number of ship cells that were not hit yet.
+     */
+    public int remainingShipCells() {
+        return Long.bitCount(shipsLo & ~hitsLo) + Long.bitCount(shipsHi & ~hitsHi);
+    }
+
+    public long getHitsLo() {
+        return hitsLo;
+    }
+
+    public long getHitsHi() {
+        return hitsHi;
+    }
+
+    public long getMissesLo() {
+        return missesLo;
+    }
+
+    public long getMissesHi() {
+        return missesHi;
+    }
+
+    /**
+     * Get the mask of a straight ship, low word.
+     *
+     * @param start    the index of the head of the ship (the top-most or left-most cell).
+     * @param size     of the ship in cells.
+     * @param vertical whether the ship goes down from the head instead of right.
+     */
+    public static long shipLo(int start, int size, boolean vertical) {
+        long mask = 0;
+        int step = vertical ? SIZE : 1;
+        for (int i = 0, index = start; i < size; i++, index += step) {
+            mask |= bitLo(index);
+        }
+        return mask;
+    }
+
+    /**
+     * Get the mask of a straight ship, high word. See {@link #shipLo(int, int, boolean)}.
+     */
+    public static long shipHi(int start, int size, boolean vertical) {
+        long mask = 0;
+        int step = vertical ? SIZE : 1;
+        for (int i = 0, index = start; i < size; i++, index += step) {
+            mask |= bitHi(index);
+        }
+        return mask;
+    }
+
+    /**
+     * Get the halo of a straight ship, low word. The halo is the ship itself plus its orthogonal neighbours inside
+     * the field; no other ship can touch it.
+     *
+     * @param start    the index of the head of the ship (the top-most or left-most cell).
+     * @param size     of the ship in cells.
+     * @param vertical whether the ship goes down from the head instead of right.
+     */
+    public static long haloLo(int start, int size, boolean vertical) {
+        long mask = 0;
+        int step = vertical ? SIZE : 1;
+        for (int i = 0, index = start; i < size; i++, index += step) {
+            mask |= neighboursLo(index);
+        }
+        return mask;
+    }
+
+    /**
+     * Get the halo of a straight ship, high word. See {@link #haloLo(int, int, boolean)}.
+     */
+    public static long haloHi(int start, int size, boolean vertical) {
+        long mask = 0;
+        int step = vertical ? SIZE : 1;
+        for (int i = 0, index = start; i < size; i++, index += step) {
+            mask |= neighboursHi(index);
+        }
+        return mask;
+    }
+
+    /* The cell itself plus the cells above, below, to the left and to the right of it, low word. */
+    private static long neighboursLo(int index) {
+        int row = index / SIZE;
+        int col = index % SIZE;
+        long mask = bitLo(index);
+        if (row > 0) {
+            mask |= bitLo(index - SIZE);
+        }
+        if (row < SIZE - 1) {
+            mask |= bitLo(index + SIZE);
+        }
+        if (col > 0) {
+            mask |= bitLo(index - 1);
+        }
+        if (col < SIZE - 1) {
+            mask |= bitLo(index + 1);
+        }
+        return mask;
+    }
+
+    /* The cell itself plus the cells above, below, to the left and to the right of it, high word. */
+    private static long neighboursHi(int index) {
+        int row = index / SIZE;
+        int col = index % SIZE;
+        long mask = bitHi(index);
+        if (row > 0) {
+            mask |= bitHi(index - SIZE);
+        }
+        if (row < SIZE - 1) {
+            mask |= bitHi(index + SIZE);
+        }
+        if (col > 0) {
+            mask |= bitHi(index - 1);
+        }
+        if (col < SIZE - 1) {
+            mask |= bitHi(index + 1);
+        }
+        return mask;
+    }
+}
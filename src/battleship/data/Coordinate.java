@@ -0,0 +1,212 @@
+package battleship.data;
+
+/**
+ * A cell of the field named the way the players type it, such as A1 or J10.
+ * <p>
+ * There is exactly one instance per cell of the standard field, interned in a fixed table, so those coordinates can
+ * be compared by reference and parsing them never allocates. Larger fields name their rows A..Z, AA..AZ, BA... and
+ * their coordinates are created on demand.
+ */
+public final class Coordinate {
+
+    /* The interned coordinates, indexed by cell index. */
+    private static final Coordinate[] TABLE = new Coordinate[Board.CELLS];
+
+    static {
+        for (int index = 0; index < Board.CELLS; index++) {
+            TABLE[index] = new Coordinate(index);
+        }
+    }
+
+    /* Row, column and cell index of the coordinate on the field. */
+    private final int row, col, index;
+
+    /* The coordinate as typed by the players. */
+    private final String text;
+
+    private Coordinate(int index) {
+        this(index / Board.SIZE, index % Board.SIZE, index);
+    }
+
+    private Coordinate(int row, int col, int index) {
+        this.row = row;
+        this.col = col;
+        this.index = index;
+        this.text = rowName(row) + (col + 1);
+    }
+
+    /**
+     * Get the name of a row: A..Z for the first 26 rows, then AA, AB...
+     *
+     * @param row index of the row.
+     * @return the name of the row.
+     */
+    public static String rowName(int row) {
+        StringBuilder name = new StringBuilder(4);
+        for (int n = row + 1; n > 0; n = (n - 1) / 26) {
+            name.append((char) ('A' + (n - 1) % 26));
+        }
+        return name.reverse().toString();
+    }
+
+    /**
+     * Get the coordinate of the passed cell index.
+     *
+     * @param index of the cell, see {@link Board#indexOf(int, int)}.
+     * @return the interned coordinate.
+     */
+    public static Coordinate of(int index) {
+        return TABLE[index];
+    }
+
+    /**
+     * Get the coordinate of the passed row and column indexes.
+     *
+     * @param row index of the cell.
+     * @param col index of the cell.
+     * @return the interned coordinate.
+     */
+    public static Coordinate of(int row, int col) {
+        return TABLE[Board.indexOf(row, col)];
+    }
+
+    /**
+     * Get the coordinate of a cell of the passed field.
+     *
+     * @param field the field the cell belongs to.
+     * @param index of the cell, see {@link Field#cellOf(int, int)}.
+     * @return the coordinate, interned if the field is standard.
+     */
+    public static Coordinate of(Field field, int index) {
+        if (field instanceof Board) {
+            return TABLE[index];
+        }
+        return new Coordinate(index / field.getCols(), index % field.getCols(), index);
+    }
+
+    /**
+     * Parse a coordinate of the passed field, such as A1 or AB120 on a large field.
+     *
+     * @param cord  the text to parse.
+     * @param field the field the coordinate belongs to.
+     * @return the coordinate, or null if the format is improper or the cell is outside the field.
+     */
+    public static Coordinate parse(CharSequence cord, Field field) {
+        int index = parseIndex(cord, field);
+        return index == -1 ? null : of(field, index);
+    }
+
+    /**
+     * Parse a coordinate of the passed field into its cell index: one or more row letters followed by the column
+     * number.
+     *
+     * @param cord  the text to parse.
+     * @param field the field the coordinate belongs to.
+     * @return the cell index, or -1 if the format is improper or the cell is outside the field.
+     */
+    public static int parseIndex(CharSequence cord, Field field) {
+        if (field instanceof Board) {
+            return parseIndex(cord);
+        }
+
+        int length = cord.length();
+        int i = 0;
+        long row = 0;
+        for (char c; i < length && (c = cord.charAt(i)) >= 'A' && c <= 'Z' && row <= field.getRows(); i++) {
+            row = row * 26 + (c - 'A' + 1);
+        }
+        if (i == 0 || i == length || cord.charAt(i) == '0') {
+            return -1;
+        }
+        long col = 0;
+        for (char c; i < length && col <= field.getCols(); i++) {
+            c = cord.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            col = col * 10 + (c - '0');
+        }
+        if (i != length || row > field.getRows() || col > field.getCols()) {
+            return -1;
+        }
+        return field.cellOf((int) row - 1, (int) col - 1);
+    }
+
+    /**
+     * Parse a coordinate such as A1 or J10: a row in [A-J] followed by a column in [1-10].
+     *
+     * @param cord the text to parse.
+     * @return the interned coordinate, or null if the format is improper.
+     */
+    public static Coordinate parse(CharSequence cord) {
+        int index = parseIndex(cord);
+        return index == -1 ? null : TABLE[index];
+    }
+
+    /**
+     * Parse a coordinate such as A1 or J10 into its cell index, char by char.
+     *
+     * @param cord the text to parse.
+     * @return the cell index, or -1 if the format is improper.
+     */
+    public static int parseIndex(CharSequence cord) {
+        /* The maximum length of a coordinate is 3 (A10) and the minimum is 2 (A1). */
+        int length = cord.length();
+        if (length < 2 || length > 3) {
+            return -1;
+        }
+
+        int row = rowIndexOf(cord.charAt(0));
+        int col = colIndexOf(cord, 1);
+        if (row == -1 || col == -1) {
+            return -1;
+        }
+        return Board.indexOf(row, col);
+    }
+
+    /**
+     * Get the row index of a row symbol in [A-J].
+     *
+     * @param symbol the character symbol representing the row.
+     * @return the corresponding row index, otherwise -1.
+     */
+    static int rowIndexOf(char symbol) {
+        return symbol >= 'A' && symbol < 'A' + Board.SIZE ? symbol - 'A' : -1;
+    }
+
+    /**
+     * Get the column index of the column part of a coordinate, a number in [1-10] that runs to the end.
+     *
+     * @param cord the text holding the column part.
+     * @param from where the column part starts in the text.
+     * @return the corresponding column index, otherwise -1.
+     */
+    static int colIndexOf(CharSequence cord, int from) {
+        int length = cord.length() - from;
+        if (length == 1) {
+            char digit = cord.charAt(from);
+            return digit >= '1' && digit <= '9' ? digit - '1' : -1;
+        }
+        if (length == 2 && cord.charAt(from) == '1' && cord.charAt(from + 1) == '0') {
+            return 9;
+        }
+        return -1;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
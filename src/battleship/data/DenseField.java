@@ -0,0 +1,127 @@
+package battleship.data;
+
+import java.util.Arrays;
+
+/**
+ * A field of any size up to {@link Field#DENSE_LIMIT} cells, with one bit per cell for the hits and misses and
+ * the number of the ship occupying each cell.
+ * <p>
+ * The halos of the placed ships are kept as a bitset of forbidden cells, so checking a placement tests one bit per
+ * cell of the ship instead of its neighbours.
+ */
+class DenseField extends Field {
+
+    /* For each cell, the number of the ship occupying it, 0 if empty. */
+    private final short[] shipAt;
+
+    /* Cells that were shot and contained a ship, and cells that were shot and were empty. */
+    private final long[] hits, misses;
+
+    /* Cells no other ship can occupy: the cells of the ships plus their orthogonal neighbours. */
+    private final long[] forbidden;
+
+    DenseField(int rows, int cols) {
+        super(rows, cols);
+        int cells = rows * cols;
+        shipAt = new short[cells];
+        hits = new long[(cells + 63) >>> 6];
+        misses = new long[(cells + 63) >>> 6];
+        forbidden = new long[(cells + 63) >>> 6];
+    }
+
+    @Override
+    void clear() {
+        super.clear();
+        Arrays.fill(shipAt, (short) 0);
+        Arrays.fill(hits, 0);
+        Arrays.fill(misses, 0);
+        Arrays.fill(forbidden, 0);
+    }
+
+    @Override
+    public boolean hasShip(int index) {
+        return shipAt[index] != 0;
+    }
+
+    @Override
+    public boolean isHit(int index) {
+        return (hits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean isMiss(int index) {
+        return (misses[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    int shipAt(int index) {
+        return shipAt[index];
+    }
+
+    @Override
+    public PlacementResult check(int start, int size, boolean vertical) {
+        if (!fits(start, size, vertical)) {
+            return PlacementResult.WRONG_LENGTH;
+        }
+
+        int step = vertical ? cols : 1;
+        for (int i = 0, cell = start; i < size; i++, cell += step) {
+            if ((forbidden[cell >>> 6] & (1L << cell)) != 0) {
+                return crosses(start, size, step) ? PlacementResult.INTERSECTION : PlacementResult.TOO_CLOSE;
+            }
+        }
+        return PlacementResult.PLACED;
+    }
+
+    private boolean crosses(int start, int size, int step) {
+        for (int i = 0, cell = start; i < size; i++, cell += step) {
+            if (hasShip(cell)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    void addShip(int start, int size, boolean vertical, int ship) {
+        for (int i = 0, cell = start; i < size; i++, cell += vertical ? cols : 1) {
+            shipAt[cell] = (short) ship;
+            forbid(cell);
+            int row = cell / cols;
+            int col = cell % cols;
+            if (row > 0) {
+                forbid(cell - cols);
+            }
+            if (row < rows - 1) {
+                forbid(cell + cols);
+            }
+            if (col > 0) {
+                forbid(cell - 1);
+            }
+            if (col < cols - 1) {
+                forbid(cell + 1);
+            }
+        }
+    }
+
+    private void forbid(int cell) {
+        forbidden[cell >>> 6] |= 1L << cell;
+    }
+
+    @Override
+    boolean shoot(int index) {
+        boolean hit = hasShip(index);
+        record(index, hit);
+        return hit;
+    }
+
+    @Override
+    public void record(int index, boolean hit) {
+        hashShot(index, hit);
+        if (hit) {
+            hits[index >>> 6] |= 1L << index;
+        } else {
+            misses[index >>> 6] |= 1L << index;
+        }
+    }
+}
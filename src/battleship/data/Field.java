@@ -0,0 +1,230 @@
+package battleship.data;
+
+/**
+ * The battlefield of a player: where the ships are and which cells were shot.
+ * <p>
+ * A cell index is {@code row * cols + col}. The representation is picked by size, see {@link #create(int, int)}:
+ * the standard 10x10 field is a {@link Board} of bitboards, other small fields are {@link DenseField}s of bitsets,
+ * and huge fields are {@link SparseField}s that only store the cells holding a ship or a shot, so their memory
+ * grows with the ships and shots rather than with the area.
+ */
+public abstract class Field {
+
+    /* Fields with more cells than this are sparse. */
+    public static final int DENSE_LIMIT = 1 << 18;
+
+    /* Number of rows and columns of the field. */
+    final int rows, cols;
+
+    /* The Zobrist hash of what the opponent sees of this field, see {@link #getHash()}. */
+    long hash;
+
+    Field(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Create an empty field of the passed dimensions, in the representation that suits its size.
+     *
+     * @param rows number of rows.
+     * @param cols number of columns.
+     * @return the empty field.
+     */
+    public static Field create(int rows, int cols) {
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid field dimensions " + rows + "x" + cols);
+        }
+        if (rows == Board.SIZE && cols == Board.SIZE) {
+            return new Board();
+        }
+        return (long) rows * cols <= DENSE_LIMIT ? new DenseField(rows, cols) : new SparseField(rows, cols);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of cells of the field.
+     */
+    public int getCells() {
+        return rows * cols;
+    }
+
+    /**
+     * Get the cell index of the passed row and column indexes.
+     */
+    public int cellOf(int row, int col) {
+        return row * cols + col;
+    }
+
+    /**
+     * Get the Zobrist hash of what the opponent sees of this field: the hits and misses, the cells of the sunk ships
+     * and which ships of the fleet are still afloat. See {@link Zobrist}.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Add a shot to the hash, unless its cell was already shot. Called before the shot is stored.
+     */
+    void hashShot(int index, boolean hit) {
+        if (!isShot(index)) {
+            hash ^= Zobrist.cell(index, hit ? Zobrist.HIT : Zobrist.MISS);
+        }
+    }
+
+    /**
+     * Add a ship of the fleet to the hash, or remove it once it is sunk.
+     *
+     * @param ship the number of the ship in the fleet, from 1.
+     */
+    void hashAfloat(int ship) {
+        hash ^= Zobrist.ship(ship);
+    }
+
+    /**
+     * Add a sunk ship to the hash: its cells are marked sunk and it is no longer afloat.
+     *
+     * @param start    the index of the head of the ship (the top-most or left-most cell).
+     * @param size     of the ship in cells.
+     * @param vertical whether the ship goes down from the head instead of right.
+     * @param ship     the number of the ship in the fleet, from 1.
+     */
+    void hashSunk(int start, int size, boolean vertical, int ship) {
+        for (int i = 0, cell = start; i < size; i++, cell += vertical ? cols : 1) {
+            hash ^= Zobrist.cell(cell, Zobrist.SUNK);
+        }
+        hashAfloat(ship);
+    }
+
+    /**
+     * Remove the ships and shots of the field and its hash, so it can be reused for another game.
+     */
+    void clear() {
+        hash = 0;
+    }
+
+    public abstract boolean hasShip(int index);
+
+    public abstract boolean isHit(int index);
+
+    public abstract boolean isMiss(int index);
+
+    /**
+     * Returns whether this cell was already shot, whether it was a hit or a miss.
+     */
+    public boolean isShot(int index) {
+        return isHit(index) || isMiss(index);
+    }
+
+    /**
+     * Get the ship occupying the passed cell.
+     *
+     * @return the number the ship was added with, or 0 if the cell is empty.
+     */
+    abstract int shipAt(int index);
+
+    /**
+     * Put a ship on the field, it must have been checked by {@link #check(int, int, boolean)}.
+     *
+     * @param start    the index of the head of the ship (the top-most or left-most cell).
+     * @param size     of the ship in cells.
+     * @param vertical whether the ship goes down from the head instead of right.
+     * @param ship     the number identifying the ship, in range [1, 32767].
+     */
+    abstract void addShip(int start, int size, boolean vertical, int ship);
+
+    /**
+     * Mark the passed cell as shot.
+     *
+     * @param index of the cell to shoot.
+     * @return true if the cell holds a ship, otherwise false.
+     */
+    abstract boolean shoot(int index);
+
+    /**
+     * Record the result of a shot on a field whose ships are unknown, such as the opponent's field as seen by a
+     * remote player.
+     *
+     * @param index of the cell that was shot.
+     * @param hit   whether the shot hit a ship.
+     */
+    public abstract void record(int index, boolean hit);
+
+    /**
+     * Check whether a ship can be placed on the field: inside it, not crossing and not touching another ship.
+     *
+     * @param start    the index of the head of the ship (the top-most or left-most cell).
+     * @param size     of the ship in cells.
+     * @param vertical whether the ship goes down from the head instead of right.
+     * @return {@link PlacementResult#PLACED} if the ship can be placed, otherwise the reason it cannot.
+     */
+    public PlacementResult check(int start, int size, boolean vertical) {
+        if (!fits(start, size, vertical)) {
+            return PlacementResult.WRONG_LENGTH;
+        }
+
+        int step = vertical ? cols : 1;
+        for (int i = 0, cell = start; i < size; i++, cell += step) {
+            if (hasShip(cell)) {
+                return PlacementResult.INTERSECTION;
+            }
+        }
+
+        /* Two ships are too close to each other if there were no empty cells between them. */
+        for (int i = 0, cell = start; i < size; i++, cell += step) {
+            int row = cell / cols;
+            int col = cell % cols;
+            if ((row > 0 && hasShip(cell - cols)) || (row < rows - 1 && hasShip(cell + cols))
+                    || (col > 0 && hasShip(cell - 1)) || (col < cols - 1 && hasShip(cell + 1))) {
+                return PlacementResult.TOO_CLOSE;
+            }
+        }
+        return PlacementResult.PLACED;
+    }
+
+    /**
+     * Returns whether a ship starting at the passed cell stays inside the field.
+     */
+    boolean fits(int start, int size, boolean vertical) {
+        if (start < 0 || start >= getCells() || size < 1) {
+            return false;
+        }
+        return vertical ? start / cols + size <= rows : start % cols + size <= cols;
+    }
+
+    /**
+     * Get the symbol of a cell as seen by the owner of the field.
+     *
+     * @return 'X' for a hit, 'M' for a miss, 'O' for an intact ship cell and '~' for an empty cell.
+     */
+    public char symbolAt(int row, int col) {
+        int index = cellOf(row, col);
+        if (isHit(index)) {
+            return 'X';
+        } else if (isMiss(index)) {
+            return 'M';
+        }
+        return hasShip(index) ? 'O' : '~';
+    }
+
+    /**
+     * Get the symbol of a cell as seen by the opponent, ships that were not hit are hidden by the fog of war.
+     *
+     * @return 'X' for a hit, 'M' for a miss and '~' otherwise.
+     */
+    public char fogSymbolAt(int row, int col) {
+        int index = cellOf(row, col);
+        if (isHit(index)) {
+            return 'X';
+        }
+        return isMiss(index) ? 'M' : '~';
+    }
+}
@@ -0,0 +1,136 @@
+package battleship.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The dimensions of the field and the fleet each player places on it.
+ * The standard game is a 10x10 field with the fleet of {@link Player#standardFleet()}.
+ */
+public final class GameConfig {
+
+    /* The standard game. */
+    public static final GameConfig STANDARD = new GameConfig(Board.SIZE, Board.SIZE, Player.standardFleet());
+
+    /* Number of rows and columns of the field. */
+    private final int rows, cols;
+
+    /* Type and size of each ship of the fleet, in the order they are placed. */
+    private final List<String> types;
+    private final int[] sizes;
+
+    /**
+     * Create a configuration by specifying the field dimensions and the fleet.
+     *
+     * @param rows  number of rows of the field.
+     * @param cols  number of columns of the field.
+     * @param fleet the ships each player places, only their types and sizes are kept.
+     */
+    public GameConfig(int rows, int cols, List<Battleship> fleet) {
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid field dimensions " + rows + "x" + cols);
+        }
+        if (fleet.isEmpty() || fleet.size() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("A fleet has 1 to " + Byte.MAX_VALUE + " ships");
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+        List<String> types = new ArrayList<>();
+        sizes = new int[fleet.size()];
+        long cells = 0;
+        for (int i = 0; i < fleet.size(); i++) {
+            Battleship battleship = fleet.get(i);
+            if (battleship.getSize() < 1 || battleship.getSize() > Math.max(rows, cols)) {
+                throw new IllegalArgumentException("The " + battleship.getType() + " does not fit on the field");
+            }
+            types.add(battleship.getType());
+            sizes[i] = battleship.getSize();
+            cells += battleship.getSize();
+        }
+        /* A cheap bound only: a fleet within it may still not fit, which the FleetGenerator reports when drawing. */
+        if (cells > (long) rows * cols) {
+            throw new IllegalArgumentException("The fleet does not fit on the field");
+        }
+        this.types = Collections.unmodifiableList(types);
+    }
+
+    /**
+     * Parse a configuration from its command line form.
+     *
+     * @param size  the field dimensions such as 20x30, or null for the standard 10x10.
+     * @param fleet the fleet such as "Carrier:5,Destroyer:2,Destroyer:2", or null for the standard fleet.
+     * @return the configuration.
+     * @throws IllegalArgumentException if either part is malformed.
+     */
+    public static GameConfig parse(String size, String fleet) {
+        int rows = Board.SIZE;
+        int cols = Board.SIZE;
+        if (size != null) {
+            String[] dimensions = size.split("x");
+            if (dimensions.length != 2) {
+                throw new IllegalArgumentException("Improper field dimensions " + size);
+            }
+            rows = Integer.parseInt(dimensions[0]);
+            cols = Integer.parseInt(dimensions[1]);
+        }
+
+        List<Battleship> ships = Player.standardFleet();
+        if (fleet != null) {
+            ships = new ArrayList<>();
+            for (String ship : fleet.split(",")) {
+                int colon = ship.lastIndexOf(':');
+                if (colon <= 0) {
+                    throw new IllegalArgumentException("Improper ship " + ship);
+                }
+                ships.add(new Battleship(ship.substring(0, colon), Integer.parseInt(ship.substring(colon + 1))));
+            }
+        }
+        return new GameConfig(rows, cols, ships);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Returns whether this is the standard 10x10 field, whatever the fleet.
+     */
+    public boolean isStandardField() {
+        return rows == Board.SIZE && cols == Board.SIZE;
+    }
+
+    /**
+     * Create an empty field, see {@link Field#create(int, int)}.
+     */
+    public Field newField() {
+        return Field.create(rows, cols);
+    }
+
+    /**
+     * Create a new fleet, not placed on the field yet.
+     *
+     * @return the ships in the order they are placed on the field.
+     */
+    public ArrayList<Battleship> newFleet() {
+        ArrayList<Battleship> fleet = new ArrayList<>();
+        for (int i = 0; i < sizes.length; i++) {
+            fleet.add(new Battleship(types.get(i), sizes[i]));
+        }
+        return fleet;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder().append(rows).append('x').append(cols);
+        for (int i = 0; i < sizes.length; i++) {
+            text.append(i == 0 ? ' ' : ',').append(types.get(i)).append(':').append(sizes[i]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package battleship.data;
+
+/**
+ * The outcome of placing a battleship on the field.
+ */
+public enum PlacementResult {
+    /* The ship was placed on the field. */
+    PLACED,
+
+    /* One or both of the coordinates are not in the format A1..J10. */
+    IMPROPER_FORMAT,
+
+    /* The coordinates are neither on the same row nor on the same column. */
+    WRONG_ORIENTATION,
+
+    /* The coordinates do not span the size of the ship, or the ship goes outside the field. */
+    WRONG_LENGTH,
+
+    /* The ship crosses another ship. */
+    INTERSECTION,
+
+    /* The ship touches another ship. */
+    TOO_CLOSE
+}
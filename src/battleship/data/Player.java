@@ -1,278 +1,241 @@
 package battleship.data;
 
-import java.util.ArrayList;
-import java.util.Scanner;
+import battleship.metrics.ShotEvent;
 
-import static battleship.Main.printField;
+import java.util.ArrayList;
 
 public class Player {
 
     /* Name of the player. */
     private final String name;
 
-    /* Minimum and maximum indexes on the field. */
-    final int MIN_INDEX = 0;
-    final int MAX_INDEX = 9;
-
-    /* The player's actual field. */
-    final char[][] field;
-
-    /* Fog of war field to be shown to the opponent to take a shot blindly. */
-    final char[][] fogOfWarField;
+    /* The player's actual field. The fog of war shown to the opponent is derived from its hits and misses.
+     * Each ship cell holds the position of its battleship in the battleships list plus one. */
+    final Field field;
 
     /* List of player's battleships that will be placed on the battle field. */
     ArrayList<Battleship> battleships;
 
+    /* Number of battleships that were placed and not sunk yet. */
+    int afloat;
+
+    /* The opponent's battleship sunk by the last sinking shot of this player. */
+    private Battleship lastSunk;
+
     /**
-     * Create a player by providing his name.
+     * Create a player by providing his name. The player gets the standard fleet, not placed on the field yet.
      *
      * @param name the name of the player.
      */
     public Player(String name) {
+        this(name, GameConfig.STANDARD);
+    }
+
+    /**
+     * Create a player by providing his name and the game he plays. The player gets an empty field and the fleet
+     * of the game, not placed on the field yet.
+     *
+     * @param name   the name of the player.
+     * @param config the dimensions of the field and the fleet.
+     */
+    public Player(String name, GameConfig config) {
         this.name = name;
 
-        /* Initialize and fill both fields with fog of war symbol. */
-        field = new char[10][10];
-        fogOfWarField = new char[10][10];
-        for (int i = 0; i < 10; i++) {
-            for (int j = 0; j < 10; j++) {
-                field[i][j] = '~';
-                fogOfWarField[i][j] = '~';
-            }
+        this.field = config.newField();
+        this.battleships = config.newFleet();
+        for (int ship = 1; ship <= battleships.size(); ship++) {
+            field.hashAfloat(ship);
         }
     }
 
     /**
-     * Ask this player to place his ships on the battlefield.
+     * Start another game with the same field and fleet: the field is emptied and the ships are taken off it, to be
+     * placed again. Nothing is allocated, so a simulation can reuse the player from one game to the next.
      */
-    public void takePosition() {
-        System.out.println(this.name + ", place your ships on the game field");
-        printField(field);
-
-        /* Each player has 5 types of ships:
-         * 1- Aircraft Carrier: 5 cells.
-         * 2- Battleship: 4 cells.
-         * 3- Submarine: 3 cells.
-         * 4- Cruiser: 3 cells.
-         * 5- Destroyer: 2 cells.
-         * */
-        battleships = new ArrayList<>();
-        battleships.add(new Battleship("Aircraft Carrier", 5));
-        battleships.add(new Battleship("Battleship", 4));
-        battleships.add(new Battleship("Submarine", 3));
-        battleships.add(new Battleship("Cruiser", 3));
-        battleships.add(new Battleship("Destroyer", 2));
-
-        for (Battleship battleship : battleships) {
-            getCoordinatesOf(battleship);
+    public void reset() {
+        field.clear();
+        for (int ship = 1; ship <= battleships.size(); ship++) {
+            battleships.get(ship - 1).reset();
+            field.hashAfloat(ship);
         }
+        afloat = 0;
+        lastSunk = null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Field getField() {
+        return field;
     }
 
     /**
-     * Get the coordinates of a battleship.
+     * Get the field of this player as a standard board.
      *
-     * @param battleship the battleship to get its coordinates.
+     * @throws IllegalStateException if the player does not play on the standard 10x10 field.
      */
-    void getCoordinatesOf(Battleship battleship) {
-        System.out.printf("Enter the coordinates of the %s (%d cells):\n",
-                battleship.getType(), battleship.getSize());
+    public Board getBoard() {
+        if (!(field instanceof Board)) {
+            throw new IllegalStateException("Not a standard field: " + field.getRows() + "x" + field.getCols());
+        }
+        return (Board) field;
+    }
 
-        Scanner sc = new Scanner(System.in);
-        String cord1, cord2;
+    /**
+     * Get the battleships of this player, including the sunk ones.
+     */
+    public ArrayList<Battleship> getBattleships() {
+        return battleships;
+    }
 
-        // How the battleship will be placed in the battlefield (horizontally or vertically).
-        String orientation;
-        do {
-            cord1 = sc.next();
-            cord2 = sc.next();
+    /**
+     * Get the number of battleships of this player that were placed and not sunk yet.
+     */
+    public int getAfloat() {
+        return afloat;
+    }
 
-            if (!isValidCoordinate(cord1) || !isValidCoordinate(cord2)) {
-                System.out.print("Improper format of one or both of the coordinates! Try again:\n");
-                continue;
-            }
+    /**
+     * Returns whether all the ships of this player were sunk.
+     */
+    public boolean isDefeated() {
+        return afloat == 0;
+    }
 
-            /* Check and get the orientation of the entered coordinates if it's valid. */
-            orientation = getOrientationOf(cord1, cord2);
-            if (orientation.equals("unknown")) {
-                System.out.print("Error! Wrong ship orientation! Try again:\n");
-                continue;
-            }
+    /**
+     * Get the opponent's battleship sunk by the last shot of this player that returned
+     * {@link ShotResult#SUNK} or {@link ShotResult#WIN}.
+     *
+     * @return the sunk battleship, or null if this player did not sink any ship yet.
+     */
+    public Battleship getLastSunk() {
+        return lastSunk;
+    }
 
-            /* A ship cannot cross or be too close to another ship.
-             * Two ships are too close to each other if there were no empty cells between them.
-             * */
-            boolean intersection = false;
-            boolean tooCloseToAnotherShip = false;
-            if (orientation.equals("horizontal")) {
-                int cord1Col = extractColIndex(cord1.substring(1));
-                int cord2Col = extractColIndex(cord2.substring(1));
-
-                /* Make sure that the battleship's length (represented by coordinates) are equal to the particular
-                 * type of the battleship. */
-                if (Math.abs(cord1Col - cord2Col) + 1 != battleship.getSize()) {
-                    System.out.printf("Error! Wrong length of %s! Try again:\n", battleship.getType());
-                    continue;
-                }
-
-                /* In horizontal mode, the ship is placed on the same row.
-                 * For example: A1 A4
-                 * */
-                int row = extractRowIndex(cord1.charAt(0));
-                if (row == -1) {
-                    throw new IllegalArgumentException("Invalid row index -1");
-                }
-
-                int startColIndex = Math.min(cord1Col, cord2Col);
-                int endColIndex = Math.max(cord1Col, cord2Col);
-
-                /* Walk the cells and check if they are empty -> For placing the ship itself.
-                 * And check the neighbouring cells -> Two ships cannot cross or be placed close to each other. */
-                Cell[] neighbours = new Cell[2];
-                for (int i = startColIndex; i <= endColIndex; i++) {
-                    if (!isCellEmpty(field, row, i)) {
-                        intersection = true;
-                        break;
-                    }
-
-                    /* For each cell, check the tow cells close to it. One above it and the other below it. */
-                    neighbours[0] = new Cell(row + 1, i);
-                    neighbours[1] = new Cell(row - 1, i);
-                    for (Cell neighbour : neighbours) {
-                        // Make sure that the neighbouring cells are not outside the field.
-                        if (neighbour.row <= MAX_INDEX && neighbour.row >= MIN_INDEX) {
-                            if (!isCellEmpty(field, neighbour)) {
-                                tooCloseToAnotherShip = true;
-                                break;
-                            }
-                        }
-                    }
-
-                    if (tooCloseToAnotherShip) {
-                        break;
-                    }
-                }
-
-                /* Check the two cells at the two ends (i.e. one cell before the head of the ship and the other
-                 * after the tail of it). */
-                neighbours[0] = new Cell(row, startColIndex - 1);
-                neighbours[1] = new Cell(row, endColIndex + 1);
-                for (Cell terminalCell : neighbours) {
-                    if (terminalCell.col <= MAX_INDEX && terminalCell.col >= MIN_INDEX) {
-                        if (!isCellEmpty(field, terminalCell)) {
-                            tooCloseToAnotherShip = true;
-                            break;
-                        }
-                    }
-                }
-
-            } else if (orientation.equals("vertical")) {
-                int cord1Row = extractRowIndex(cord1.charAt(0));
-                int cord2Row = extractRowIndex(cord2.charAt(0));
-
-                /* Make sure that the battleship's length (represented by coordinates) are equal to the particular
-                 * type of the battleship. */
-                if (Math.abs(cord1Row - cord2Row) + 1 != battleship.getSize()) {
-                    System.out.printf("Error! Wrong length of %s! Try again:\n", battleship);
-                    continue;
-                }
-
-                /* In vertical mode, the ship is placed on the same column.
-                 * For example: A1 D1
-                 * */
-                int col = extractColIndex(cord1.substring(1));
-                if (col == -1) {
-                    throw new IllegalArgumentException("Invalid column index -1");
-                }
-
-                int startRowIndex = Math.min(cord1Row, cord2Row);
-                int endRowIndex = Math.max(cord1Row, cord2Row);
-
-                /* Walk the cells and check if they are empty -> For placing the ship itself.
-                 * And check the neighbouring cells -> Two ships cannot cross or be placed close to each other. */
-                Cell[] neighbours = new Cell[2];
-                for (int i = startRowIndex; i <= endRowIndex; i++) {
-                    if (!isCellEmpty(field, i, col)) {
-                        intersection = true;
-                        break;
-                    }
-
-                    /* For each cell, check the two cells close to it. One to the right and the other to the left. */
-                    neighbours[0] = new Cell(i, col + 1);
-                    neighbours[1] = new Cell(i, col - 1);
-                    for (Cell neighbour : neighbours) {
-                        /* Don't go outside the field. */
-                        if (neighbour.col <= MAX_INDEX && neighbour.col >= MIN_INDEX) {
-                            if (!isCellEmpty(field, neighbour)) {
-                                tooCloseToAnotherShip = true;
-                                break;
-                            }
-                        }
-                    }
-
-                    if (tooCloseToAnotherShip) {
-                        break;
-                    }
-                }
-
-                /* Check the two cells at the two ends (i.e. one cell before the head of the ship and the other
-                 * after the tail of it). */
-                neighbours[0] = new Cell(startRowIndex - 1, col);
-                neighbours[1] = new Cell(endRowIndex + 1, col);
-                for (Cell terminalCell : neighbours) {
-                    if (terminalCell.row <= MAX_INDEX && terminalCell.row >= MIN_INDEX) {
-                        if (!isCellEmpty(field, terminalCell)) {
-                            tooCloseToAnotherShip = true;
-                            break;
-                        }
-                    }
-                }
-            }
+    /**
+     * Create the standard fleet. Each player has 5 types of ships:
+     * 1- Aircraft Carrier: 5 cells.
+     * 2- Battleship: 4 cells.
+     * 3- Submarine: 3 cells.
+     * 4- Cruiser: 3 cells.
+     * 5- Destroyer: 2 cells.
+     *
+     * @return the ships in the order they are placed on the field.
+     */
+    public static ArrayList<Battleship> standardFleet() {
+        ArrayList<Battleship> fleet = new ArrayList<>();
+        fleet.add(new Battleship("Aircraft Carrier", 5));
+        fleet.add(new Battleship("Battleship", 4));
+        fleet.add(new Battleship("Submarine", 3));
+        fleet.add(new Battleship("Cruiser", 3));
+        fleet.add(new Battleship("Destroyer", 2));
+        return fleet;
+    }
 
-            if (intersection || tooCloseToAnotherShip) {
-                System.out.print("Error! Your ship intercepts or too close to another one. Try again:\n");
-                continue;
-            }
+    /**
+     * Place a battleship on the field by the coordinates of its two ends, such as A1 A5.
+     * Nothing is changed unless the placement is legal.
+     *
+     * @param battleship the battleship to place.
+     * @param cord1      the head of the battleship.
+     * @param cord2      the tail of the battleship.
+     * @return {@link PlacementResult#PLACED} if the ship was placed, otherwise the reason it was rejected.
+     */
+    public PlacementResult placeShip(Battleship battleship, String cord1, String cord2) {
+        return placeShip(battleship, Coordinate.parse(cord1, field), Coordinate.parse(cord2, field));
+    }
+
+    /**
+     * Place a battleship on the field by the coordinates of its two ends.
+     * Nothing is changed unless the placement is legal.
+     *
+     * @param battleship the battleship to place.
+     * @param cord1      the head of the battleship, null if it was not in a proper format.
+     * @param cord2      the tail of the battleship, null if it was not in a proper format.
+     * @return {@link PlacementResult#PLACED} if the ship was placed, otherwise the reason it was rejected.
+     */
+    public PlacementResult placeShip(Battleship battleship, Coordinate cord1, Coordinate cord2) {
+        if (cord1 == null || cord2 == null) {
+            return PlacementResult.IMPROPER_FORMAT;
+        }
 
-            /* If the execution reached here (i.e. was not intercepted by a continue statement), then the coordinates
-             * are valid. */
-            break;
-        } while (true);
+        /* Check and get the orientation of the entered coordinates if it's valid. */
+        String orientation = getOrientationOf(cord1, cord2);
+        if (orientation.equals("unknown")) {
+            return PlacementResult.WRONG_ORIENTATION;
+        }
 
-        /*
-         * At this point, we guarantee the validity of the coordinates entered.
-         * Store them and fill them in the field.
-         * */
-        battleship.setCord1(cord1);
-        battleship.setCord2(cord2);
-        battleship.setOrientation(orientation);
+        /* Make sure that the battleship's length (represented by coordinates) are equal to the particular
+         * type of the battleship. */
+        int rows = Math.abs(cord1.getRow() - cord2.getRow());
+        int cols = Math.abs(cord1.getCol() - cord2.getCol());
+        if (rows + cols + 1 != battleship.getSize()) {
+            return PlacementResult.WRONG_LENGTH;
+        }
 
-        placeShip(cord1, cord2, orientation);
-        printField(field);
+        int start = field.cellOf(Math.min(cord1.getRow(), cord2.getRow()), Math.min(cord1.getCol(), cord2.getCol()));
+        PlacementResult result = placeShip(battleship, start, orientation.equals("vertical"));
+        if (result == PlacementResult.PLACED) {
+            battleship.setCord1(cord1);
+            battleship.setCord2(cord2);
+        }
+        return result;
     }
 
     /**
-     * Checks the validation of the passed coordinate, in terms of length, possible columns and rows.
+     * Place a battleship on the field by the index of its head, the top-most or left-most cell.
+     * Nothing is changed unless the placement is legal.
      *
-     * @param cord the coordinate to check. Such as A10, B9, D5...etc.
-     * @return true if the format of the coordinate is valid, otherwise false.
+     * @param battleship the battleship to place.
+     * @param start      the cell index of the head of the battleship, see {@link Field#cellOf(int, int)}.
+     * @param vertical   whether the ship goes down from the head instead of right.
+     * @return {@link PlacementResult#PLACED} if the ship was placed, otherwise the reason it was rejected.
+     * @throws IllegalArgumentException if the ship is not of the fleet of this player or is already placed.
      */
-    static boolean isValidCoordinate(String cord) {
-        /* The maximum length of a coordinate is 3 (A10) and the minimum is 2 (A1). */
-        if (cord.length() > 3 || cord.length() < 2) {
-            return false;
+    public PlacementResult placeShip(Battleship battleship, int start, boolean vertical) {
+        int ship = battleships.indexOf(battleship) + 1;
+        if (ship == 0) {
+            throw new IllegalArgumentException("Not a ship of this fleet: " + battleship.getType());
         }
+        if (battleship.getCord1() != null) {
+            throw new IllegalArgumentException("Already placed: " + battleship.getType());
+        }
+        int size = battleship.getSize();
 
-        /* Row part of the coordinate should be in range [A-J]. */
-        if (!String.valueOf(cord.charAt(0)).matches("[A-J]")) {
-            return false;
+        /* A ship cannot cross or be too close to another ship.
+         * Two ships are too close to each other if there were no empty cells between them.
+         * */
+        PlacementResult result = field.check(start, size, vertical);
+        if (result != PlacementResult.PLACED) {
+            return result;
         }
 
-        /* Column part of the coordinate should be in range [1-10]. */
-        if (!cord.substring(1).matches("[1-9]") &&
-                !cord.substring(1).matches("10")) {
-            return false;
+        /* Store the coordinates and fill them in the field. */
+        int end = start + (size - 1) * (vertical ? field.getCols() : 1);
+        battleship.setCord1(Coordinate.of(field, start));
+        battleship.setCord2(Coordinate.of(field, end));
+        battleship.setOrientation(vertical ? "vertical" : "horizontal");
+        if (field instanceof Board) {
+            battleship.setMask(Board.shipLo(start, size, vertical), Board.shipHi(start, size, vertical));
+        } else {
+            battleship.resetHits();
         }
-        return true;
+
+        /* Index the cells of the ship, so a hit resolves its ship directly. */
+        field.addShip(start, size, vertical, ship);
+        afloat++;
+        return PlacementResult.PLACED;
+    }
+
+    /**
+     * Checks the validation of the passed coordinate, in terms of length, possible columns and rows.
+     *
+     * @param cord the coordinate to check. Such as A10, B9, D5...etc.
+     * @return true if the format of the coordinate is valid, otherwise false.
+     */
+    public static boolean isValidCoordinate(String cord) {
+        return Coordinate.parseIndex(cord) != -1;
     }
 
     /**
@@ -290,10 +253,10 @@ public class Player {
      * @return the orientation represented by those coordinates. If the orientation is not horizontal or vertical,
      * it returns unknown.
      */
-    private String getOrientationOf(String cord1, String cord2) {
-        if (cord1.charAt(0) == cord2.charAt(0) && cord1.charAt(1) != cord2.charAt(1)) {
+    private String getOrientationOf(Coordinate cord1, Coordinate cord2) {
+        if (cord1.getRow() == cord2.getRow() && cord1.getCol() != cord2.getCol()) {
             return "horizontal";
-        } else if (cord1.charAt(1) == cord2.charAt(1) && cord1.charAt(0) != cord2.charAt(0)) {
+        } else if (cord1.getCol() == cord2.getCol() && cord1.getRow() != cord2.getRow()) {
             return "vertical";
         }
 
@@ -308,41 +271,8 @@ public class Player {
      * @param colCord the column part of a coordinate.
      * @return the corresponding index of the string, otherwise -1.
      */
-    static int extractColIndex(String colCord) {
-        switch (colCord) {
-            case "1":
-                return 0;
-
-            case "2":
-                return 1;
-
-            case "3":
-                return 2;
-
-            case "4":
-                return 3;
-
-            case "5":
-                return 4;
-
-            case "6":
-                return 5;
-
-            case "7":
-                return 6;
-
-            case "8":
-                return 7;
-
-            case "9":
-                return 8;
-
-            case "10":
-                return 9;
-
-            default:
-                return -1;
-        }
+    public static int extractColIndex(String colCord) {
+        return Coordinate.colIndexOf(colCord, 0);
     }
 
     /**
@@ -353,156 +283,150 @@ public class Player {
      * @param symbol the character symbol representing the row.
      * @return the corresponding index in the field, otherwise -1.
      */
-    static int extractRowIndex(char symbol) {
-        switch (symbol) {
-            case 'A':
-                return 0;
-
-            case 'B':
-                return 1;
-
-            case 'C':
-                return 2;
-
-            case 'D':
-                return 3;
-
-            case 'E':
-                return 4;
-
-            case 'F':
-                return 5;
-
-            case 'G':
-                return 6;
-
-            case 'H':
-                return 7;
-
-            case 'I':
-                return 8;
-
-            case 'J':
-                return 9;
-
-            default:
-                return -1;
-        }
+    public static int extractRowIndex(char symbol) {
+        return Coordinate.rowIndexOf(symbol);
     }
 
-
     /**
-     * Returns whether this cell is empty in the field.
+     * Take a shot and hit a cell on the opponent's field.
      *
-     * @param cell the cell to check, each cell object has a row and column for the cell coordinates.
-     * @return true if the specified cell is empty, otherwise false.
+     * @param opponent of this player.
+     * @param index    the index of the targeted cell, see {@link Field#cellOf(int, int)}.
+     * @return the result of the shot.
      */
-    static boolean isCellEmpty(char[][] field, Cell cell) {
-        return field[cell.row][cell.col] == '~';
+    public ShotResult fireAt(Player opponent, int index) {
+        ShotResult result = resolve(opponent, index);
+
+        /* Once compiled, a disabled event is never allocated, so the simulations do not pay for it. */
+        ShotEvent event = new ShotEvent();
+        if (event.shouldCommit()) {
+            event.cell = index;
+            event.result = result.name();
+            event.commit();
+        }
+        return result;
     }
 
     /**
-     * Returns whether this cell is empty in the field.
+     * Fire a salvo, several shots at once, on the opponent's field. The results are those the shots would have had
+     * if they were fired one by one in order: a cell shot twice is a hit or a miss again, and the shot that sinks a
+     * ship is the last one of the salvo that hits it.
+     * <p>
+     * On the standard field the salvo is resolved as a whole: its cells are shot with a single update of the
+     * bitboards, and only the ships under its new hits are damaged.
      *
-     * @param row the row of which the cell is located.
-     * @param col the column of which the cell is located.
-     * @return true if the specified cell is empty, otherwise false.
+     * @param opponent of this player.
+     * @param targets  the indexes of the targeted cells, see {@link Field#cellOf(int, int)}.
+     * @param count    the number of shots of the salvo, the first entries of the targets.
+     * @param report   receives the result of each shot and the totals of the salvo, cleared first.
+     * @return the report.
      */
-    static boolean isCellEmpty(char[][] field, int row, int col) {
-        return field[row][col] == '~';
-    }
+    public SalvoReport fireSalvo(Player opponent, int[] targets, int count, SalvoReport report) {
+        report.clear(count);
+        if (opponent.field instanceof Board) {
+            resolveSalvo(opponent, (Board) opponent.field, targets, count, report);
+        } else {
+            for (int i = 0; i < count; i++) {
+                ShotResult result = resolve(opponent, targets[i]);
+                report.set(i, result, result == ShotResult.SUNK || result == ShotResult.WIN ? lastSunk : null);
+            }
+        }
 
-    static boolean isCellEmpty(char[][] field, String cord) {
-        return isCellEmpty(
-                field,
-                extractRowIndex(cord.charAt(0)),
-                extractColIndex(cord.substring(1)));
+        for (int i = 0; i < count; i++) {
+            ShotEvent event = new ShotEvent();
+            if (event.shouldCommit()) {
+                event.cell = targets[i];
+                event.result = report.getResult(i).name();
+                event.commit();
+            }
+        }
+        return report;
     }
 
-    /**
-     * Place the ship represented by cord1 & cord2 on the field.
-     * Fill the cells from cord1 -> cord2 with 'O'.
-     *
-     * @param cord1       the first end of the battleship.
-     * @param cord2       the second end of the battleship.
-     * @param orientation of the battleship.
-     */
-    private void placeShip(String cord1, String cord2, String orientation) {
-        switch (orientation) {
-            case "horizontal":
-                /* In horizontal mode, the difference is in the columns. */
-                int row = extractRowIndex(cord1.charAt(0));
-                int cord1Col = extractColIndex(cord1.substring(1));
-                int cord2Col = extractColIndex(cord2.substring(1));
-
-                int startColIndex = Math.min(cord1Col, cord2Col);
-                int endColIndex = Math.max(cord1Col, cord2Col);
-                for (int i = startColIndex; i <= endColIndex; i++) {
-                    field[row][i] = 'O';
-                }
-
-            case "vertical":
-                /* In vertical mode, the difference is in the rows. */
-                int col = extractColIndex(cord1.substring(1));
-                int cord1Row = extractRowIndex(cord1.charAt(0));
-                int cord2Row = extractRowIndex(cord2.charAt(0));
-
-                int startRowIndex = Math.min(cord1Row, cord2Row);
-                int endRowIndex = Math.max(cord1Row, cord2Row);
-                for (int i = startRowIndex; i <= endRowIndex; i++) {
-                    field[i][col] = 'O';
-                }
+    private void resolveSalvo(Player opponent, Board board, int[] targets, int count, SalvoReport report) {
+        long lo = 0;
+        long hi = 0;
+        for (int i = 0; i < count; i++) {
+            lo |= Board.bitLo(targets[i]);
+            hi |= Board.bitHi(targets[i]);
         }
-    }
 
-    /**
-     * Take a shot and hit a point on the opponent's field then report the result.
-     *
-     * @param opponent of this player.
-     * @return the report of the shot.
-     */
-    public String takeShotAndReport(Player opponent) {
-        Scanner sc = new Scanner(System.in);
-
-        printField(opponent.fogOfWarField);
-        System.out.println("---------------------");
-        printField(this.field);
-        System.out.println(this.name + ", it's your turn:");
-
-        String shot = sc.nextLine().trim();
-        while (!isValidCoordinate(shot)) {
-            System.out.print("Improper format of the target! Try again:\n");
-            shot = sc.nextLine().trim();
+        /* The ship cells of the salvo that were not hit before, each one damages its ship once. */
+        long newHitsLo = lo & board.shipsLo & ~board.hitsLo;
+        long newHitsHi = hi & board.shipsHi & ~board.hitsHi;
+        board.shootAll(lo, hi);
+
+        long sunkLo = 0;
+        long sunkHi = 0;
+        for (long bits = newHitsLo; bits != 0; bits &= bits - 1) {
+            Battleship battleship = opponent.battleships.get(board.shipAt(Long.numberOfTrailingZeros(bits)) - 1);
+            if (battleship.hit()) {
+                sunkLo |= battleship.getMaskLo();
+                sunkHi |= battleship.getMaskHi();
+            }
+        }
+        for (long bits = newHitsHi; bits != 0; bits &= bits - 1) {
+            Battleship battleship = opponent.battleships.get(board.shipAt(64 + Long.numberOfTrailingZeros(bits)) - 1);
+            if (battleship.hit()) {
+                sunkLo |= battleship.getMaskLo();
+                sunkHi |= battleship.getMaskHi();
+            }
         }
 
-        int row = extractRowIndex(shot.charAt(0));
-        int col = extractColIndex(shot.substring(1));
+        /* The shot that sinks a ship is the one that hits the last of its cells that were not hit yet, later shots
+         * on it are hits again. */
+        long leftLo = newHitsLo;
+        long leftHi = newHitsHi;
+        for (int i = 0; i < count; i++) {
+            int index = targets[i];
+            int ship = board.shipAt(index);
+            if (!Board.contains(leftLo, leftHi, index)) {
+                report.set(i, ship != 0 ? ShotResult.HIT : ShotResult.MISS, null);
+                continue;
+            }
 
-        String report;
-        if (isCellEmpty(opponent.field, row, col)) {
-            report = "You missed!";
-            opponent.field[row][col] = 'M';
-            opponent.fogOfWarField[row][col] = 'M';
-        } else {
-            report = "You hit a ship!";
-            opponent.field[row][col] = 'X';
-            opponent.fogOfWarField[row][col] = 'X';
-
-            // Check if a ship was sunk due to the hit.
-            for (Battleship battleship : opponent.battleships) {
-                if (Battleship.isSunk(opponent.field, battleship)) {
-                    opponent.battleships.remove(battleship);
-                    report = "You sank a ship! Specify a new target";
-
-                    // Check if the player has already won by sinking all the opponent's ships.
-                    if (opponent.battleships.size() == 0) {
-                        report = "You sank the last ship. You won. Congratulations!\n" +
-                                "The winner is " + this.name;
-                    }
-                    break;
-                }
+            leftLo &= ~Board.bitLo(index);
+            leftHi &= ~Board.bitHi(index);
+            Battleship battleship = opponent.battleships.get(ship - 1);
+            if (!Board.contains(sunkLo, sunkHi, index)
+                    || ((leftLo & battleship.getMaskLo()) | (leftHi & battleship.getMaskHi())) != 0) {
+                report.set(i, ShotResult.HIT, null);
+                continue;
             }
+
+            Coordinate cord1 = battleship.getCord1();
+            Coordinate cord2 = battleship.getCord2();
+            board.hashSunk(board.cellOf(Math.min(cord1.getRow(), cord2.getRow()),
+                    Math.min(cord1.getCol(), cord2.getCol())), battleship.getSize(),
+                    "vertical".equals(battleship.getOrientation()), ship);
+            lastSunk = battleship;
+            report.set(i, --opponent.afloat == 0 ? ShotResult.WIN : ShotResult.SUNK, battleship);
         }
-        return report;
     }
-}
\ No newline at end of file
+
+    private ShotResult resolve(Player opponent, int index) {
+        /* A cell that was already hit does not damage its ship any further. */
+        if (opponent.field.isHit(index)) {
+            return ShotResult.HIT;
+        }
+        if (!opponent.field.shoot(index)) {
+            return ShotResult.MISS;
+        }
+
+        // Check if a ship was sunk due to the hit.
+        int ship = opponent.field.shipAt(index);
+        Battleship battleship = opponent.battleships.get(ship - 1);
+        if (!battleship.hit()) {
+            return ShotResult.HIT;
+        }
+
+        Coordinate cord1 = battleship.getCord1();
+        Coordinate cord2 = battleship.getCord2();
+        opponent.field.hashSunk(opponent.field.cellOf(Math.min(cord1.getRow(), cord2.getRow()),
+                Math.min(cord1.getCol(), cord2.getCol())), battleship.getSize(),
+                "vertical".equals(battleship.getOrientation()), ship);
+        lastSunk = battleship;
+        // Check if the player has already won by sinking all the opponent's ships.
+        return --opponent.afloat == 0 ? ShotResult.WIN : ShotResult.SUNK;
+    }
+}
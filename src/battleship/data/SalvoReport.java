@@ -0,0 +1,109 @@
+package battleship.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The outcome of a salvo, the shots a player fires at once in a turn of the Salvo variant: the result of each shot,
+ * as if they had been fired one by one in order, and the totals of the turn.
+ * <p>
+ * A report is filled by {@link Player#fireSalvo(Player, int[], int, SalvoReport)} and can be passed to the next
+ * salvo, which clears it first.
+ */
+public class SalvoReport {
+
+    /* The result of each shot of the salvo, the first "shots" entries are live. */
+    private ShotResult[] results = new ShotResult[8];
+    private int shots;
+
+    /* Number of shots that hit a ship, including the sinking ones, and number of shots that missed. */
+    private int hits, misses;
+
+    /* The ships sunk by the salvo, in the order of the shots that sank them. */
+    private final List<Battleship> sunk = new ArrayList<>();
+
+    /* Whether the salvo sank the last ship of the opponent. */
+    private boolean won;
+
+    /**
+     * Forget the last salvo and make room for the next one.
+     *
+     * @param shots the number of shots of the next salvo.
+     */
+    void clear(int shots) {
+        if (results.length < shots) {
+            results = new ShotResult[Math.max(shots, results.length * 2)];
+        }
+        Arrays.fill(results, 0, shots, null);
+        this.shots = shots;
+        hits = 0;
+        misses = 0;
+        sunk.clear();
+        won = false;
+    }
+
+    /**
+     * Set the result of a shot of the salvo.
+     *
+     * @param shot   the position of the shot in the salvo.
+     * @param result of the shot.
+     * @param ship   the ship the shot sank, or null if it did not sink one.
+     */
+    void set(int shot, ShotResult result, Battleship ship) {
+        results[shot] = result;
+        if (result == ShotResult.MISS) {
+            misses++;
+        } else {
+            hits++;
+        }
+        if (result == ShotResult.WIN) {
+            won = true;
+        }
+        if (ship != null) {
+            sunk.add(ship);
+        }
+    }
+
+    /**
+     * Get the number of shots of the salvo.
+     */
+    public int getShots() {
+        return shots;
+    }
+
+    /**
+     * Get the result of a shot of the salvo.
+     *
+     * @param shot the position of the shot in the salvo.
+     * @return the result the shot would have had if the shots were fired one by one.
+     */
+    public ShotResult getResult(int shot) {
+        if (shot < 0 || shot >= shots) {
+            throw new IndexOutOfBoundsException("Shot " + shot + " of a salvo of " + shots);
+        }
+        return results[shot];
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the ships sunk by the salvo, in the order of the shots that sank them.
+     */
+    public List<Battleship> getSunk() {
+        return sunk;
+    }
+
+    /**
+     * Returns whether the salvo sank the last ship of the opponent.
+     */
+    public boolean isWin() {
+        return won;
+    }
+}
@@ -0,0 +1,135 @@
+package battleship.data;
+
+/**
+ * Every horizontal and vertical position of a ship of a given size on the field, precomputed once.
+ * <p>
+ * A placement is identified by its number in [0, count). For each one the table keeps the head cell, the orientation,
+ * the mask of the cells it occupies and its halo (the ship plus its orthogonal neighbours), see {@link Board}.
+ * It also indexes the placements by cell, so the placements crossing or touching a cell can be walked directly.
+ */
+public final class ShipPlacements {
+
+    /* Tables of all the sizes a ship can have on the field, indexed by size. */
+    private static final ShipPlacements[] BY_SIZE = new ShipPlacements[Board.SIZE + 1];
+
+    static {
+        for (int size = 1; size <= Board.SIZE; size++) {
+            BY_SIZE[size] = new ShipPlacements(size);
+        }
+    }
+
+    /* Size of the ship in cells. */
+    public final int size;
+
+    /* Number of placements. */
+    public final int count;
+
+    /* The head cell (top-most or left-most) and orientation of each placement. */
+    public final int[] start;
+    public final boolean[] vertical;
+
+    /* Cells occupied by each placement. */
+    public final long[] shipLo, shipHi;
+
+    /* The halo of each placement: its cells plus their orthogonal neighbours. */
+    public final long[] haloLo, haloHi;
+
+    /* For each cell, the placements occupying it. */
+    public final int[][] crossing;
+
+    /* For each cell, the placements touching it without occupying it. */
+    public final int[][] touching;
+
+    private ShipPlacements(int size) {
+        this.size = size;
+
+        int perLine = Board.SIZE - size + 1;
+        /* A ship of size 1 is the same cell in both orientations, keep it once. */
+        count = size == 1 ? Board.CELLS : 2 * Board.SIZE * perLine;
+        start = new int[count];
+        vertical = new boolean[count];
+        shipLo = new long[count];
+        shipHi = new long[count];
+        haloLo = new long[count];
+        haloHi = new long[count];
+
+        int[] crossingCount = new int[Board.CELLS];
+        int[] touchingCount = new int[Board.CELLS];
+        int id = 0;
+        for (int orientation = 0; orientation < (size == 1 ? 1 : 2); orientation++) {
+            boolean down = orientation == 1;
+            for (int row = 0; row < (down ? perLine : Board.SIZE); row++) {
+                for (int col = 0; col < (down ? Board.SIZE : perLine); col++) {
+                    int head = Board.indexOf(row, col);
+                    start[id] = head;
+                    vertical[id] = down;
+                    shipLo[id] = Board.shipLo(head, size, down);
+                    shipHi[id] = Board.shipHi(head, size, down);
+                    haloLo[id] = Board.haloLo(head, size, down);
+                    haloHi[id] = Board.haloHi(head, size, down);
+                    for (int cell = 0; cell < Board.CELLS; cell++) {
+                        if (Board.contains(shipLo[id], shipHi[id], cell)) {
+                            crossingCount[cell]++;
+                        } else if (Board.contains(haloLo[id], haloHi[id], cell)) {
+                            touchingCount[cell]++;
+                        }
+                    }
+                    id++;
+                }
+            }
+        }
+
+        crossing = new int[Board.CELLS][];
+        touching = new int[Board.CELLS][];
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            crossing[cell] = new int[crossingCount[cell]];
+            touching[cell] = new int[touchingCount[cell]];
+            crossingCount[cell] = 0;
+            touchingCount[cell] = 0;
+        }
+        for (id = 0; id < count; id++) {
+            for (int cell = 0; cell < Board.CELLS; cell++) {
+                if (Board.contains(shipLo[id], shipHi[id], cell)) {
+                    crossing[cell][crossingCount[cell]++] = id;
+                } else if (Board.contains(haloLo[id], haloHi[id], cell)) {
+                    touching[cell][touchingCount[cell]++] = id;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the placements of a ship of the passed size.
+     *
+     * @param size of the ship in cells, in range [1, 10].
+     * @return the precomputed placements.
+     */
+    public static ShipPlacements ofSize(int size) {
+        return BY_SIZE[size];
+    }
+
+    /**
+     * Get the number of a placement from its head and orientation, the inverse of {@link #start} and
+     * {@link #vertical}. The placement must fit on the field.
+     *
+     * @param head     the head cell of the placement.
+     * @param vertical whether the ship goes down from the head instead of right.
+     * @return the number of the placement in [0, count).
+     */
+    public int idOf(int head, boolean vertical) {
+        int perLine = Board.SIZE - size + 1;
+        if (size == 1) {
+            return head;
+        }
+        int row = head / Board.SIZE;
+        int col = head % Board.SIZE;
+        return vertical ? Board.SIZE * perLine + head : row * perLine + col;
+    }
+
+    /**
+     * Get the step between two consecutive cells of a placement: 10 if vertical, otherwise 1.
+     */
+    public int stepOf(int id) {
+        return vertical[id] ? Board.SIZE : 1;
+    }
+}
@@ -0,0 +1,18 @@
+package battleship.data;
+
+/**
+ * The outcome of a single shot on the opponent's field.
+ */
+public enum ShotResult {
+    /* The shot landed on an empty cell. */
+    MISS,
+
+    /* The shot hit a ship that is still afloat. */
+    HIT,
+
+    /* The shot hit the last intact cell of a ship. */
+    SUNK,
+
+    /* The shot sank the last ship of the opponent, the shooter won. */
+    WIN
+}
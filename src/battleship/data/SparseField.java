@@ -0,0 +1,150 @@
+package battleship.data;
+
+import java.util.Arrays;
+
+/**
+ * A huge field that only stores the cells holding a ship or a shot, in open addressing hash tables.
+ * Its memory grows with the number of ship cells and shots, not with the area of the field.
+ */
+class SparseField extends Field {
+
+    /* Marks of the shot cells. */
+    private static final int HIT = 1;
+    private static final int MISS = 2;
+
+    /* The number of the ship occupying each ship cell. */
+    private final CellMap ships = new CellMap();
+
+    /* HIT or MISS for each shot cell. */
+    private final CellMap shots = new CellMap();
+
+    SparseField(int rows, int cols) {
+        super(rows, cols);
+    }
+
+    @Override
+    void clear() {
+        super.clear();
+        ships.clear();
+        shots.clear();
+    }
+
+    @Override
+    public boolean hasShip(int index) {
+        return ships.get(index) != 0;
+    }
+
+    @Override
+    public boolean isHit(int index) {
+        return shots.get(index) == HIT;
+    }
+
+    @Override
+    public boolean isMiss(int index) {
+        return shots.get(index) == MISS;
+    }
+
+    @Override
+    public boolean isShot(int index) {
+        return shots.get(index) != 0;
+    }
+
+    @Override
+    int shipAt(int index) {
+        return ships.get(index);
+    }
+
+    @Override
+    void addShip(int start, int size, boolean vertical, int ship) {
+        for (int i = 0, cell = start; i < size; i++, cell += vertical ? cols : 1) {
+            ships.put(cell, ship);
+        }
+    }
+
+    @Override
+    boolean shoot(int index) {
+        boolean hit = hasShip(index);
+        record(index, hit);
+        return hit;
+    }
+
+    @Override
+    public void record(int index, boolean hit) {
+        hashShot(index, hit);
+        shots.put(index, hit ? HIT : MISS);
+    }
+
+    /**
+     * A map from cell index to a non-zero value, with linear probing. Missing cells map to 0.
+     */
+    static final class CellMap {
+
+        /* Marks a free slot, cell indexes are never negative. */
+        private static final int FREE = -1;
+
+        private int[] keys = new int[16];
+        private int[] values = new int[16];
+        private int size;
+
+        CellMap() {
+            Arrays.fill(keys, FREE);
+        }
+
+        /**
+         * Remove all the cells, keeping the table at its current capacity.
+         */
+        void clear() {
+            Arrays.fill(keys, FREE);
+            size = 0;
+        }
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                if (keys[slot] == FREE) {
+                    return 0;
+                }
+            }
+        }
+
+        void put(int key, int value) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != FREE && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == FREE) {
+                keys[slot] = key;
+                /* Keep the table at most half full. */
+                if (++size * 2 > keys.length) {
+                    values[slot] = value;
+                    grow();
+                    return;
+                }
+            }
+            values[slot] = value;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            Arrays.fill(keys, FREE);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != FREE) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package battleship.data;
+
+/**
+ * The Zobrist keys of what a player sees of the opponent's field: a random key per cell and mark (hit, miss, or cell
+ * of a sunk ship), and a random key per ship of the fleet still afloat. The hash of a field is the exclusive or of
+ * the keys of its marks and of its ships afloat, so each shot updates it in constant time and two games reaching the
+ * same observations in a different order get the same hash.
+ * <p>
+ * The keys are derived from the cell or ship number by a mixing function rather than drawn into tables, so fields of
+ * any size have keys, and they are the same in every run. The keys of the standard field are tabulated.
+ */
+public final class Zobrist {
+
+    /* The marks of a cell. */
+    public static final int HIT = 0;
+    public static final int MISS = 1;
+    public static final int SUNK = 2;
+
+    private static final int MARKS = 3;
+
+    /* Fixed, so the hashes can be compared across runs. */
+    private static final long SEED = 0x5DEECE66DL;
+
+    /* The keys of the cells of the standard field, by cell then mark. */
+    private static final long[] STANDARD = new long[Board.CELLS * MARKS];
+
+    static {
+        for (int i = 0; i < STANDARD.length; i++) {
+            STANDARD[i] = mix(SEED + (i + 1) * 0x9E3779B97F4A7C15L);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Get the key of a mark on a cell.
+     *
+     * @param index the index of the cell.
+     * @param mark  {@link #HIT}, {@link #MISS} or {@link #SUNK}.
+     */
+    public static long cell(int index, int mark) {
+        long i = (long) index * MARKS + mark;
+        return i < STANDARD.length ? STANDARD[(int) i] : mix(SEED + (i + 1) * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Get the key of a ship afloat.
+     *
+     * @param ship the number of the ship in the fleet, from 1.
+     */
+    public static long ship(int ship) {
+        return mix(SEED - ship * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * The finalizer of SplittableRandom: every bit of the input affects every bit of the output.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
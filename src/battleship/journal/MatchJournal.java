@@ -0,0 +1,525 @@
+package battleship.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the matches hosted by a server, with periodic snapshots, so the matches in progress
+ * survive a crash.
+ * <p>
+ * Every event (a match started, a ship placed, a shot taken, a match finished) is appended to the current journal
+ * segment as a frame: its length, the CRC32 of its payload, then the payload. The journal applies each event to the
+ * {@link MatchState} of its match as well, so it always knows the state of the matches in progress.
+ * <p>
+ * Appending only encodes the event into a buffer. A single background thread writes the buffered events and syncs
+ * them to the disk, all the events appended during the previous sync being written by the next one (group commit).
+ * {@link #awaitDurable(long)} waits until an event is on the disk, so a reply can be held back until its move can no
+ * longer be lost, without limiting the turns to one sync each. The journal waits on a lock rather than a monitor, so
+ * a virtual thread waiting for the disk does not pin its carrier thread.
+ * <p>
+ * Every so many events the writer starts a new segment and writes a snapshot of the matches in progress at that
+ * point: snapshot N holds what segments 0 to N-1 held, so those are deleted once it is on the disk. Recovery loads
+ * the latest snapshot and replays the segments from its number on, up to the first torn or corrupted frame.
+ */
+public class MatchJournal implements Closeable {
+
+    /* Types of the events. */
+    private static final byte START = 1;
+    private static final byte PLACE = 2;
+    private static final byte SHOT = 3;
+    private static final byte FINISH = 4;
+
+    /* First bytes of a snapshot: "BSS1". */
+    private static final int SNAPSHOT_MAGIC = 0x42535331;
+
+    /* Default number of events between two snapshots. */
+    public static final int DEFAULT_SNAPSHOT_EVENTS = 100_000;
+
+    /* Where the segments and snapshots are kept. */
+    private final Path directory;
+
+    /* Whether each batch is synced to the disk, rather than left to the operating system. */
+    private final boolean sync;
+
+    /* Number of events between two snapshots. */
+    private final int snapshotEvents;
+
+    /* The matches in progress, as of the last appended event. */
+    private final Map<Long, MatchState> live = new HashMap<>();
+
+    /* The matches that were in progress when the journal was opened. */
+    private final List<MatchState> recovered;
+
+    /* Events appended and not written yet, and the buffer of the batch being written. */
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer spare = ByteBuffer.allocate(1 << 16);
+
+    /* Number of events appended, and number of them that are on the disk. */
+    private long appended, durable;
+
+    /* Number of events appended when the last snapshot was taken. */
+    private long snapshotAt;
+
+    /* The segment being written and its number, only used by the writer thread. */
+    private FileChannel segment;
+    private int segmentNumber;
+
+    /* Checksum of the frames, used under the lock. */
+    private final CRC32 crc = new CRC32();
+
+    /* Guards the pending events and the counters, and signals a change of them to the writer and the waiters. */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private final Thread writer;
+    private boolean closed;
+    private IOException failure;
+
+    private MatchJournal(Path directory, boolean sync, int snapshotEvents) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.sync = sync;
+        this.snapshotEvents = snapshotEvents;
+
+        int snapshot = recover();
+        recovered = new ArrayList<>(live.values());
+
+        /* Never append to a recovered segment, its tail may have been torn. */
+        segmentNumber = snapshot;
+        while (Files.exists(segmentPath(segmentNumber))) {
+            segmentNumber++;
+        }
+        segment = FileChannel.open(segmentPath(segmentNumber), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE);
+
+        writer = new Thread(this::writeLoop, "battleship-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Open a journal, recovering the matches that were in progress.
+     *
+     * @param directory      where the segments and snapshots are kept, created if needed.
+     * @param sync           whether each batch of events is synced to the disk.
+     * @param snapshotEvents number of events between two snapshots.
+     * @return the journal, ready to append.
+     * @throws IOException if the directory cannot be read or the first segment cannot be created.
+     */
+    public static MatchJournal open(Path directory, boolean sync, int snapshotEvents) throws IOException {
+        return new MatchJournal(directory, sync, snapshotEvents);
+    }
+
+    /**
+     * Get the matches that were in progress when the journal was opened.
+     */
+    public Collection<MatchState> getRecovered() {
+        return recovered;
+    }
+
+    /**
+     * Append the start of a match.
+     *
+     * @return the sequence number of the event, see {@link #awaitDurable(long)}.
+     */
+    public long started(long id, String name0, String name1, long token0, long token1) {
+        lock.lock();
+        try {
+            MatchState state = new MatchState(id, name0, name1, token0, token1);
+            live.put(id, state);
+
+            int position = begin(1 + state.encodedLength());
+            pending.put(START);
+            state.encode(pending);
+            return end(position);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append the placement of a ship.
+     *
+     * @return the sequence number of the event.
+     */
+    public long placed(long id, int seat, int head, boolean vertical) {
+        lock.lock();
+        try {
+            live.get(id).place(seat, head, vertical);
+
+            int position = begin(1 + 8 + 1 + 1);
+            pending.put(PLACE).putLong(id).put((byte) seat).put((byte) (head | (vertical ? MatchState.VERTICAL : 0)));
+            return end(position);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append a shot.
+     *
+     * @return the sequence number of the event.
+     */
+    public long shot(long id, int cell) {
+        lock.lock();
+        try {
+            live.get(id).shot(cell);
+
+            int position = begin(1 + 8 + 1);
+            pending.put(SHOT).putLong(id).put((byte) cell);
+            return end(position);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append the end of a match, which is forgotten from then on.
+     *
+     * @return the sequence number of the event.
+     */
+    public long finished(long id) {
+        lock.lock();
+        try {
+            live.remove(id);
+
+            int position = begin(1 + 8);
+            pending.put(FINISH).putLong(id);
+            return end(position);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Make room for a frame in the pending buffer and skip its header.
+     *
+     * @return the position of the frame.
+     */
+    private int begin(int payload) {
+        if (pending.remaining() < 8 + payload) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + 8 + payload));
+            pending.flip();
+            pending = larger.put(pending);
+        }
+        int position = pending.position();
+        pending.position(position + 8);
+        return position;
+    }
+
+    /**
+     * Fill the header of the frame ending at the current position, and wake the writer up.
+     */
+    private long end(int position) {
+        int length = pending.position() - position - 8;
+        crc.reset();
+        crc.update(pending.array(), position + 8, length);
+        pending.putInt(position, length);
+        pending.putInt(position + 4, (int) crc.getValue());
+        if (appended == durable) {
+            /* The writer is idle. */
+            changed.signalAll();
+        }
+        return ++appended;
+    }
+
+    /**
+     * Wait until an event is on the disk.
+     *
+     * @param sequence the sequence number returned when the event was appended.
+     * @throws IOException if the journal could not be written.
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        lock.lock();
+        try {
+            while (durable < sequence && failure == null && !closed) {
+                changed.awaitUninterruptibly();
+            }
+            if (durable < sequence) {
+                throw failure != null ? failure : new IOException("The journal is closed");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                ByteBuffer batch;
+                long batchEnd;
+                byte[] snapshot = null;
+                lock.lock();
+                try {
+                    while (appended == durable && !closed) {
+                        changed.await();
+                    }
+                    if (appended == durable) {
+                        return;
+                    }
+                    batch = pending;
+                    pending = spare;
+                    batchEnd = appended;
+                    if (appended - snapshotAt >= snapshotEvents) {
+                        snapshot = encodeSnapshot();
+                        snapshotAt = appended;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+
+                write(batch);
+                lock.lock();
+                try {
+                    spare = batch;
+                    durable = batchEnd;
+                    changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                if (snapshot != null) {
+                    snapshot(snapshot);
+                }
+            }
+        } catch (IOException e) {
+            lock.lock();
+            try {
+                failure = e;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            // Closed.
+        }
+    }
+
+    private void write(ByteBuffer batch) throws IOException {
+        batch.flip();
+        while (batch.hasRemaining()) {
+            segment.write(batch);
+        }
+        if (sync) {
+            segment.force(false);
+        }
+        batch.clear();
+    }
+
+    /**
+     * Encode the matches in progress, as of the last appended event.
+     */
+    private byte[] encodeSnapshot() {
+        int length = 4;
+        for (MatchState state : live.values()) {
+            length += state.encodedLength();
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        payload.putInt(live.size());
+        for (MatchState state : live.values()) {
+            state.encode(payload);
+        }
+        return payload.array();
+    }
+
+    /**
+     * Start a new segment and write the passed snapshot of everything before it, then delete what it replaces.
+     * The batch holding the last event of the snapshot was already written to the previous segment.
+     */
+    private void snapshot(byte[] payload) throws IOException {
+        segment.close();
+        int number = ++segmentNumber;
+        segment = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+        /* Appending threads use the shared checksum, this runs outside the lock. */
+        CRC32 checksum = new CRC32();
+        checksum.update(payload, 0, payload.length);
+        ByteBuffer file = ByteBuffer.allocate(12 + payload.length);
+        file.putInt(SNAPSHOT_MAGIC).putInt(payload.length).putInt((int) checksum.getValue()).put(payload).flip();
+
+        Path temporary = directory.resolve("snapshot.tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (file.hasRemaining()) {
+                channel.write(file);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, snapshotPath(number), StandardCopyOption.ATOMIC_MOVE);
+
+        for (int older = number - 1; older >= 0; older--) {
+            boolean deleted = Files.deleteIfExists(segmentPath(older));
+            deleted |= Files.deleteIfExists(snapshotPath(older));
+            if (!deleted) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Load the latest snapshot and replay the segments written after it into the matches in progress.
+     *
+     * @return the number of the snapshot, 0 if there is none.
+     */
+    private int recover() throws IOException {
+        int snapshot = 0;
+        for (int number = 0; number <= lastNumber(); number++) {
+            if (Files.exists(snapshotPath(number)) && loadSnapshot(snapshotPath(number))) {
+                snapshot = number;
+            }
+        }
+        for (int number = snapshot; number <= lastNumber(); number++) {
+            if (Files.exists(segmentPath(number))) {
+                replay(segmentPath(number));
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Get the highest number of the segments and snapshots in the directory, -1 if there is none.
+     */
+    private int lastNumber() throws IOException {
+        int last = -1;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.matches("(journal|snapshot)-\\d{6}\\.(log|snap)")) {
+                    last = Math.max(last, Integer.parseInt(name.substring(name.indexOf('-') + 1, name.indexOf('.'))));
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Replace the matches in progress by those of a snapshot.
+     *
+     * @return false if the snapshot is incomplete or corrupted, and was ignored.
+     */
+    private boolean loadSnapshot(Path path) throws IOException {
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (file.remaining() < 12 || file.getInt() != SNAPSHOT_MAGIC) {
+            return false;
+        }
+        int length = file.getInt();
+        int checksum = file.getInt();
+        if (length != file.remaining()) {
+            return false;
+        }
+        crc.reset();
+        crc.update(file.array(), 12, length);
+        if ((int) crc.getValue() != checksum) {
+            return false;
+        }
+
+        live.clear();
+        for (int count = file.getInt(); count > 0; count--) {
+            MatchState state = MatchState.decode(file);
+            live.put(state.getId(), state);
+        }
+        return true;
+    }
+
+    /**
+     * Apply the frames of a segment, up to the first torn or corrupted one where the segment is cut.
+     */
+    private void replay(Path path) throws IOException {
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path));
+        while (file.remaining() >= 8) {
+            int start = file.position();
+            int length = file.getInt();
+            int checksum = file.getInt();
+            if (length <= 0 || length > file.remaining()) {
+                file.position(start);
+                break;
+            }
+            crc.reset();
+            crc.update(file.array(), file.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                file.position(start);
+                break;
+            }
+            apply(file.slice().limit(length));
+            file.position(file.position() + length);
+        }
+
+        if (file.hasRemaining()) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(file.position());
+            }
+        }
+    }
+
+    private void apply(ByteBuffer event) {
+        byte type = event.get();
+        if (type == START) {
+            MatchState state = MatchState.decode(event);
+            live.put(state.getId(), state);
+            return;
+        }
+
+        MatchState state = live.get(event.getLong());
+        if (state == null) {
+            return;
+        }
+        if (type == PLACE) {
+            int seat = event.get();
+            int value = event.get() & 0xFF;
+            state.place(seat, value & ~MatchState.VERTICAL, (value & MatchState.VERTICAL) != 0);
+        } else if (type == SHOT) {
+            state.shot(event.get());
+        } else if (type == FINISH) {
+            live.remove(state.getId());
+        }
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("journal-%06d.log", number));
+    }
+
+    private Path snapshotPath(int number) {
+        return directory.resolve(String.format("snapshot-%06d.snap", number));
+    }
+
+    /**
+     * Write the pending events and stop the writer.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
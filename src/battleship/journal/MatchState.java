@@ -0,0 +1,149 @@
+package battleship.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * What the journal knows of a match in progress: who plays it, the ships placed so far and the shots taken so far.
+ * <p>
+ * Everything else (the fields, the hits of each ship, whose turn it is) follows from placing the ships and taking the
+ * shots again, so a state holds a byte per ship and per shot, like a {@link battleship.record.GameRecord}. The shots
+ * alternate between the players, starting with player 0.
+ */
+public final class MatchState {
+
+    /* Highest bit of a ship's byte, set if the ship goes down from its head. */
+    static final int VERTICAL = 0x80;
+
+    private final long id;
+
+    /* Names of the players and the tokens they resume the match with. */
+    private final String[] names;
+    private final long[] tokens;
+
+    /* Ships placed by each player, in the order of the fleet. */
+    private final byte[][] ships = {new byte[8], new byte[8]};
+    private final int[] placed = new int[2];
+
+    /* Shots of both players in turn order. */
+    private byte[] shots = new byte[64];
+    private int shotCount;
+
+    MatchState(long id, String name0, String name1, long token0, long token1) {
+        this.id = id;
+        this.names = new String[]{name0, name1};
+        this.tokens = new long[]{token0, token1};
+    }
+
+    void place(int seat, int head, boolean vertical) {
+        if (placed[seat] == ships[seat].length) {
+            ships[seat] = Arrays.copyOf(ships[seat], placed[seat] * 2);
+        }
+        ships[seat][placed[seat]++] = (byte) (head | (vertical ? VERTICAL : 0));
+    }
+
+    void shot(int cell) {
+        if (shotCount == shots.length) {
+            shots = Arrays.copyOf(shots, shotCount * 2);
+        }
+        shots[shotCount++] = (byte) cell;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName(int seat) {
+        return names[seat];
+    }
+
+    public long getToken(int seat) {
+        return tokens[seat];
+    }
+
+    /**
+     * Get the number of ships the player placed so far.
+     */
+    public int getPlaced(int seat) {
+        return placed[seat];
+    }
+
+    /**
+     * Get the index of the head (the top-most or left-most cell) of a placed ship.
+     */
+    public int headOf(int seat, int ship) {
+        return ships[seat][ship] & ~VERTICAL & 0xFF;
+    }
+
+    /**
+     * Returns whether a placed ship goes down from its head instead of right.
+     */
+    public boolean isVertical(int seat, int ship) {
+        return (ships[seat][ship] & VERTICAL) != 0;
+    }
+
+    public int getShotCount() {
+        return shotCount;
+    }
+
+    /**
+     * Get the cell shot by a shot, the shots alternate between the players starting with player 0.
+     */
+    public int shotAt(int shot) {
+        return shots[shot];
+    }
+
+    /**
+     * Get the number of bytes of the encoded state.
+     */
+    int encodedLength() {
+        return 8 + 16 + 2 + utf8(names[0]).length + 2 + utf8(names[1]).length + 2 + placed[0] + placed[1] + 4
+                + shotCount;
+    }
+
+    void encode(ByteBuffer buffer) {
+        buffer.putLong(id);
+        buffer.putLong(tokens[0]).putLong(tokens[1]);
+        putString(buffer, names[0]);
+        putString(buffer, names[1]);
+        buffer.put((byte) placed[0]).put((byte) placed[1]);
+        buffer.put(ships[0], 0, placed[0]).put(ships[1], 0, placed[1]);
+        buffer.putInt(shotCount).put(shots, 0, shotCount);
+    }
+
+    static MatchState decode(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        long token0 = buffer.getLong();
+        long token1 = buffer.getLong();
+        MatchState state = new MatchState(id, getString(buffer), getString(buffer), token0, token1);
+        int placed0 = buffer.get();
+        int placed1 = buffer.get();
+        for (int seat = 0; seat < 2; seat++) {
+            for (int ship = 0; ship < (seat == 0 ? placed0 : placed1); ship++) {
+                int value = buffer.get() & 0xFF;
+                state.place(seat, value & ~VERTICAL, (value & VERTICAL) != 0);
+            }
+        }
+        int shots = buffer.getInt();
+        for (int shot = 0; shot < shots; shot++) {
+            state.shot(buffer.get());
+        }
+        return state;
+    }
+
+    static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static void putString(ByteBuffer buffer, String text) {
+        byte[] bytes = utf8(text);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,89 @@
+package battleship.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The in-process registry of the counters and histograms of the game, exported as a text snapshot.
+ * <p>
+ * Metrics are created on first use and live as long as the process. The snapshot gives the rate of each counter
+ * since the previous snapshot, such as games and shots per second, and the mean and percentiles of each histogram,
+ * such as the turn latency.
+ */
+public final class Metrics {
+
+    /* The metrics by name, sorted so the snapshot is stable. Declared first, the constants below register in them. */
+    private static final Map<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+
+    /* Games played to the end, by the console, the server or the simulations. */
+    public static final Counter GAMES = counter("games");
+
+    /* Shots taken. */
+    public static final Counter SHOTS = counter("shots");
+
+    /* Latency of a turn in nanoseconds, from asking a player for a shot to reporting its result. */
+    public static final Histogram TURN_NANOS = histogram("turn.nanos");
+
+    /* Values of the counters at the previous snapshot, to compute their rates. */
+    private static final Map<String, Long> PREVIOUS = new ConcurrentHashMap<>();
+    private static long previousNanos = System.nanoTime();
+
+    private Metrics() {
+    }
+
+    /**
+     * Get the counter of the passed name, created on first use.
+     */
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * Get the histogram of the passed name, created on first use.
+     */
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Get a text snapshot of every metric, one per line, and start the rates over.
+     *
+     * @return lines such as "shots 1200 (350.2/s)" and "turn.nanos n=40 mean=1.2ms p50<=1.0ms p99<=3.1ms".
+     */
+    public static synchronized String snapshot() {
+        long now = System.nanoTime();
+        double seconds = Math.max(now - previousNanos, 1) / 1e9;
+        previousNanos = now;
+
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Counter> entry : COUNTERS.entrySet()) {
+            long value = entry.getValue().get();
+            Long previous = PREVIOUS.put(entry.getKey(), value);
+            text.append(String.format("%s %d (%.1f/s)%n", entry.getKey(), value,
+                    (value - (previous == null ? 0 : previous)) / seconds));
+        }
+        for (Map.Entry<String, Histogram> entry : HISTOGRAMS.entrySet()) {
+            Histogram histogram = entry.getValue();
+            text.append(String.format("%s n=%d mean=%s p50<=%s p99<=%s%n", entry.getKey(), histogram.getCount(),
+                    nanos((long) histogram.getMean()), nanos(histogram.percentile(50)),
+                    nanos(histogram.percentile(99))));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Format a duration with a unit that suits it.
+     */
+    private static String nanos(long nanos) {
+        if (nanos < 10_000) {
+            return nanos + "ns";
+        } else if (nanos < 10_000_000) {
+            return String.format("%.1fus", nanos / 1e3);
+        } else if (nanos < 10_000_000_000L) {
+            return String.format("%.1fms", nanos / 1e6);
+        }
+        return String.format("%.1fs", nanos / 1e9);
+    }
+}
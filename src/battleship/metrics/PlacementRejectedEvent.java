@@ -0,0 +1,41 @@
+package battleship.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A placement entered by a player and rejected, so the player is asked for the same ship again.
+ */
+@Name("battleship.PlacementRejected")
+@Label("Placement Rejected")
+@Category("Battleship")
+@Description("A ship placement is rejected: improper format, wrong orientation or length, intersection, too close")
+@StackTrace(false)
+public class PlacementRejectedEvent extends Event {
+
+    @Label("Ship")
+    public String ship;
+
+    @Label("Reason")
+    public String reason;
+
+    /**
+     * Count a rejected placement under "placement.rejected.&lt;reason&gt;" and emit its event if it is enabled.
+     *
+     * @param ship   the type of the ship that was rejected.
+     * @param reason why it was rejected.
+     */
+    public static void rejected(String ship, Enum<?> reason) {
+        Metrics.counter("placement.rejected." + reason.name().toLowerCase()).increment();
+        PlacementRejectedEvent event = new PlacementRejectedEvent();
+        if (event.shouldCommit()) {
+            event.ship = ship;
+            event.reason = reason.name();
+            event.commit();
+        }
+    }
+}
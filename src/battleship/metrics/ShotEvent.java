@@ -0,0 +1,25 @@
+package battleship.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The resolution of a shot by the engine.
+ */
+@Name("battleship.Shot")
+@Label("Shot")
+@Category("Battleship")
+@Description("A shot is resolved to a miss, a hit, a sunk ship or a win")
+@StackTrace(false)
+public class ShotEvent extends Event {
+
+    @Label("Cell")
+    public int cell;
+
+    @Label("Result")
+    public String result;
+}
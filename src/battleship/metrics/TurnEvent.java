@@ -0,0 +1,26 @@
+package battleship.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A turn of a player, from the moment they are asked for a shot to the moment its result is reported.
+ */
+@Name("battleship.Turn")
+@Label("Turn")
+@Category("Battleship")
+@Description("A player is asked for a shot and its result is reported")
+public class TurnEvent extends Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("Target")
+    public String target;
+
+    @Label("Result")
+    public String result;
+}
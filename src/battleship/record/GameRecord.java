@@ -0,0 +1,144 @@
+package battleship.record;
+
+import battleship.data.Battleship;
+import battleship.data.Board;
+import battleship.data.Coordinate;
+import battleship.data.Player;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The record of a single game on the standard field, being built while the game is played.
+ * <p>
+ * A record holds the fleet of each player and every shot in turn order, the player who took the first shot
+ * being player 0. Each coordinate fits in a byte: a shot is its cell index, and a ship is the index of its head
+ * with the highest bit set if it goes down. The results of the shots are not stored, they follow from replaying the
+ * shots against the fleets, see {@link Replay}.
+ * <p>
+ * Encoded record:
+ * <pre>
+ * u16  length of the rest of the record
+ * u8   number of ships n
+ * n    size of each ship
+ * n    ships of player 0
+ * n    ships of player 1
+ * u8   the winner, 0 or 1
+ * ...  the shots, up to the end of the record
+ * </pre>
+ * A record can be reused for another game after {@link #clear()}.
+ */
+public class GameRecord {
+
+    /* Highest bit of a ship's byte, set if the ship goes down from its head. */
+    static final int VERTICAL = 0x80;
+
+    /* Bytes of the encoded record before its shots, besides the fleets. */
+    static final int HEADER = 2 + 1 + 1;
+
+    /* Size of each ship, in the order the players hold them. */
+    private byte[] sizes = new byte[0];
+
+    /* Ships of each player, see the class comment. */
+    private final byte[][] fleets = new byte[2][];
+
+    /* Number of players whose fleet was recorded. */
+    private int placed;
+
+    /* The shots of both players in turn order. */
+    private byte[] shots = new byte[64];
+    private int shotCount;
+
+    /**
+     * Forget the recorded game, so the record can be reused.
+     */
+    public void clear() {
+        placed = 0;
+        shotCount = 0;
+    }
+
+    /**
+     * Record the fleet of the next player, once all its ships are placed.
+     * The fleet of the player who takes the first shot must be recorded first.
+     *
+     * @param player the player whose ships are placed.
+     * @throws IllegalArgumentException if the player does not play on the standard field.
+     */
+    public void placed(Player player) {
+        if (!(player.getField() instanceof Board)) {
+            throw new IllegalArgumentException("Only games on the standard field can be recorded");
+        }
+        if (placed == 2) {
+            throw new IllegalStateException("Both fleets are already recorded");
+        }
+
+        List<Battleship> battleships = player.getBattleships();
+        if (placed == 0 && sizes.length != battleships.size()) {
+            sizes = new byte[battleships.size()];
+        }
+        byte[] fleet = fleets[placed];
+        if (fleet == null || fleet.length != battleships.size()) {
+            fleet = fleets[placed] = new byte[battleships.size()];
+        }
+
+        for (int i = 0; i < battleships.size(); i++) {
+            Battleship battleship = battleships.get(i);
+            Coordinate cord1 = battleship.getCord1();
+            Coordinate cord2 = battleship.getCord2();
+            int head = Math.min(cord1.getIndex(), cord2.getIndex());
+            sizes[i] = (byte) battleship.getSize();
+            fleet[i] = (byte) (head | (cord1.getCol() == cord2.getCol() && battleship.getSize() > 1 ? VERTICAL : 0));
+        }
+        placed++;
+    }
+
+    /**
+     * Record the next shot. The players take turns, starting with player 0.
+     *
+     * @param index the index of the cell that was shot, see {@link Board#indexOf(int, int)}.
+     */
+    public void shot(int index) {
+        if (shotCount == shots.length) {
+            shots = Arrays.copyOf(shots, shotCount * 2);
+        }
+        shots[shotCount++] = (byte) index;
+    }
+
+    public int getShotCount() {
+        return shotCount;
+    }
+
+    /**
+     * Get the player who took the last shot, the winner once the game is over.
+     */
+    public int getWinner() {
+        return (shotCount - 1) & 1;
+    }
+
+    /**
+     * Get the number of bytes of the encoded record.
+     */
+    public int encodedLength() {
+        return HEADER + 3 * sizes.length + shotCount;
+    }
+
+    /**
+     * Encode the record at the position of the passed buffer.
+     *
+     * @param buffer the buffer to write to, with at least {@link #encodedLength()} bytes remaining.
+     * @throws IllegalStateException if the fleets of both players were not recorded.
+     */
+    public void encode(ByteBuffer buffer) {
+        if (placed != 2) {
+            throw new IllegalStateException("The fleets of both players must be recorded");
+        }
+        buffer.putShort((short) (encodedLength() - 2));
+        buffer.put((byte) sizes.length);
+        buffer.put(sizes);
+        buffer.put(fleets[0], 0, sizes.length);
+        buffer.put(fleets[1], 0, sizes.length);
+        buffer.put((byte) getWinner());
+        buffer.put(shots, 0, shotCount);
+    }
+}
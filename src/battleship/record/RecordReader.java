@@ -0,0 +1,105 @@
+package battleship.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the game records written by {@link RecordWriter}, with every segment mapped in memory.
+ * <p>
+ * Records are not copied out of the segments: the visitor sees each of them through the same {@link RecordView},
+ * which reads the bytes of the mapping in place, so scanning millions of games allocates nothing per game.
+ */
+public class RecordReader implements Closeable {
+
+    /* The mapped segments, in the order they were written. */
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    /* Number of segments the last scan stopped short of their end, at a torn or corrupted record. */
+    private int corrupt;
+
+    /**
+     * Map all the segments of a directory.
+     *
+     * @param directory where the segments were written.
+     * @throws IOException if a segment cannot be mapped or does not start with the magic number.
+     */
+    public RecordReader(Path directory) throws IOException {
+        for (int i = 0; Files.exists(segmentPath(directory, i)); i++) {
+            try (FileChannel channel = FileChannel.open(segmentPath(directory, i))) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                segment.order(ByteOrder.BIG_ENDIAN);
+                if (segment.remaining() < 4 || segment.getInt(0) != RecordWriter.MAGIC) {
+                    throw new IOException("Not a game record segment: " + segmentPath(directory, i));
+                }
+                segments.add(segment);
+            }
+        }
+    }
+
+    /**
+     * Get the path of a segment.
+     *
+     * @param directory where the segments are written.
+     * @param number    of the segment, starting from 0.
+     */
+    static Path segmentPath(Path directory, int number) {
+        return directory.resolve(String.format("games-%06d.bsr", number));
+    }
+
+    public int getSegments() {
+        return segments.size();
+    }
+
+    /**
+     * Get the number of segments the last scan stopped short of their end, at a torn or corrupted record.
+     */
+    public int getCorrupt() {
+        return corrupt;
+    }
+
+    /**
+     * Visit every record, in the order they were written. A segment is only read up to its first record that does
+     * not fit in it, such as one cut off in a crash, and the records of the next segments are still visited.
+     *
+     * @param visitor called with a view of each record, only valid during the call.
+     * @return the number of records visited.
+     */
+    public long scan(Visitor visitor) {
+        RecordView view = new RecordView();
+        long records = 0;
+        corrupt = 0;
+        for (MappedByteBuffer segment : segments) {
+            int limit = segment.limit();
+            for (int position = 4; position < limit; records++) {
+                if (position + 2 > limit || !view.wrap(segment, position, limit)) {
+                    corrupt++;
+                    break;
+                }
+                visitor.visit(view);
+                position = view.end();
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public void close() {
+        /* Mappings are released by the garbage collector, there is no portable way to unmap them earlier. */
+        segments.clear();
+    }
+
+    /**
+     * Receives the records of a scan.
+     */
+    public interface Visitor {
+
+        void visit(RecordView record);
+    }
+}
@@ -0,0 +1,110 @@
+package battleship.record;
+
+import battleship.data.Board;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A record read in place from a segment, see {@link GameRecord} for the layout.
+ * The same view moves from record to record during a scan.
+ */
+public final class RecordView {
+
+    private ByteBuffer segment;
+
+    /* Position of the first byte of the record, after its length. */
+    private int base;
+
+    /* Length of the record, without its length. */
+    private int length;
+
+    /* Number of ships of each fleet. */
+    private int ships;
+
+    /**
+     * Move to the record at a position of a segment.
+     *
+     * @param limit the end of the segment.
+     * @return false if the record does not fit before the limit or is too short for its fleets, such as at the end
+     *         of a segment cut off in a crash, in which case the view is left unusable.
+     */
+    boolean wrap(ByteBuffer segment, int position, int limit) {
+        this.segment = segment;
+        this.length = segment.getShort(position) & 0xFFFF;
+        this.base = position + 2;
+        if (length == 0 || base + length > limit) {
+            return false;
+        }
+        this.ships = segment.get(base) & 0xFF;
+        /* The ship count, the sizes and the ships of both fleets, and the winner. */
+        return 1 + 3 * ships + 1 <= length;
+    }
+
+    /**
+     * Get the position right after the record in its segment.
+     */
+    int end() {
+        return base + length;
+    }
+
+    /**
+     * Get the number of ships of each fleet.
+     */
+    public int getShips() {
+        return ships;
+    }
+
+    /**
+     * Get the size of a ship, the ships are in the same order in both fleets.
+     */
+    public int sizeOf(int ship) {
+        return segment.get(base + 1 + ship);
+    }
+
+    /**
+     * Get the index of the head (the top-most or left-most cell) of a ship, see {@link Board#indexOf(int, int)}.
+     *
+     * @param player 0 for the player who took the first shot, otherwise 1.
+     * @param ship   the position of the ship in the fleet.
+     */
+    public int headOf(int player, int ship) {
+        return shipByte(player, ship) & ~GameRecord.VERTICAL;
+    }
+
+    /**
+     * Returns whether a ship goes down from its head instead of right.
+     *
+     * @param player 0 for the player who took the first shot, otherwise 1.
+     * @param ship   the position of the ship in the fleet.
+     */
+    public boolean isVertical(int player, int ship) {
+        return (shipByte(player, ship) & GameRecord.VERTICAL) != 0;
+    }
+
+    private int shipByte(int player, int ship) {
+        return segment.get(base + 1 + (1 + player) * ships + ship) & 0xFF;
+    }
+
+    /**
+     * Get the player who won the game, 0 for the player who took the first shot, otherwise 1.
+     */
+    public int getWinner() {
+        return segment.get(base + 1 + 3 * ships);
+    }
+
+    /**
+     * Get the number of shots of both players.
+     */
+    public int getShotCount() {
+        return length - (GameRecord.HEADER - 2) - 3 * ships;
+    }
+
+    /**
+     * Get the index of the cell shot by a shot. Shots alternate between the players, starting with player 0.
+     *
+     * @param shot the number of the shot, starting from 0.
+     */
+    public int shotAt(int shot) {
+        return segment.get(base + 2 + 3 * ships + shot);
+    }
+}
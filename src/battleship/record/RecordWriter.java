@@ -0,0 +1,131 @@
+package battleship.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends game records to segment files in a directory.
+ * <p>
+ * Records are encoded into a buffer and written to the current segment when the buffer is full, so a record costs
+ * no system call of its own. A segment is closed and a new one started once it reaches its maximum size, so that
+ * segments can be mapped in memory whole by {@link RecordReader}. Each segment starts with {@link #MAGIC}.
+ * A writer may be shared by the threads of a tournament.
+ */
+public class RecordWriter implements Closeable {
+
+    /* First bytes of every segment: "BSR1". */
+    static final int MAGIC = 0x42535231;
+
+    /* Default maximum size of a segment. */
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    /* Size of the buffer records are encoded into. */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /* Where the segments are created. */
+    private final Path directory;
+
+    /* A segment is closed once it reaches this size. */
+    private final long segmentBytes;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    /* The segment being written, null until the first record. */
+    private FileChannel segment;
+    private long segmentSize;
+
+    /* Number of the next segment to create. */
+    private int nextSegment;
+
+    /* Number of records appended. */
+    private long records;
+
+    /**
+     * Create a writer with the default segment size.
+     *
+     * @param directory where the segments are created. It is created if needed, and existing segments are kept.
+     */
+    public RecordWriter(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Create a writer by specifying the maximum size of the segments.
+     *
+     * @param directory    where the segments are created. It is created if needed, and existing segments are kept.
+     * @param segmentBytes the maximum size of a segment.
+     */
+    public RecordWriter(Path directory, long segmentBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        while (Files.exists(RecordReader.segmentPath(directory, nextSegment))) {
+            nextSegment++;
+        }
+    }
+
+    /**
+     * Append a finished game.
+     *
+     * @param record the record of the game.
+     */
+    public synchronized void append(GameRecord record) throws IOException {
+        int length = record.encodedLength();
+        if (length - 2 > 0xFFFF) {
+            throw new IllegalArgumentException("Game too long to be recorded: " + record.getShotCount() + " shots");
+        }
+        if (segment == null || segmentSize + buffer.position() + length > segmentBytes) {
+            nextSegment();
+        }
+        if (buffer.remaining() < length) {
+            drain();
+        }
+        record.encode(buffer);
+        records++;
+    }
+
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    /**
+     * Write the buffered records to the current segment.
+     */
+    public synchronized void flush() throws IOException {
+        if (segment != null) {
+            drain();
+        }
+    }
+
+    private void nextSegment() throws IOException {
+        if (segment != null) {
+            drain();
+            segment.close();
+        }
+        segment = FileChannel.open(RecordReader.segmentPath(directory, nextSegment++),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentSize = 0;
+        buffer.putInt(MAGIC);
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segmentSize += segment.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segment != null) {
+            drain();
+            segment.close();
+            segment = null;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package battleship.record;
+
+import battleship.data.Battleship;
+import battleship.data.PlacementResult;
+import battleship.data.Player;
+import battleship.data.ShotResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays recorded games again through the engine, to check that the engine still reaches the recorded outcome.
+ */
+public class Replay {
+
+    private Replay() {
+    }
+
+    /**
+     * Replay a recorded game.
+     *
+     * @param record the record of the game.
+     * @return the players of the game after its last shot, the player who took the first shot first.
+     * @throws IllegalStateException if a ship is rejected, or if the game does not end with the last shot
+     *                               of the recorded winner.
+     */
+    public static Player[] replay(RecordView record) {
+        Player[] players = {new Player("player 0"), new Player("player 1")};
+        for (int player = 0; player < 2; player++) {
+            players[player].getBattleships().clear();
+            players[player].getBattleships().addAll(fleetOf(record));
+            List<Battleship> battleships = players[player].getBattleships();
+            for (int ship = 0; ship < battleships.size(); ship++) {
+                PlacementResult result = players[player].placeShip(battleships.get(ship),
+                        record.headOf(player, ship), record.isVertical(player, ship));
+                if (result != PlacementResult.PLACED) {
+                    throw new IllegalStateException("Recorded ship " + ship + " of player " + player +
+                            " was rejected: " + result);
+                }
+            }
+        }
+
+        int shots = record.getShotCount();
+        for (int shot = 0; shot < shots; shot++) {
+            ShotResult result = players[shot & 1].fireAt(players[~shot & 1], record.shotAt(shot));
+            if ((result == ShotResult.WIN) != (shot == shots - 1)) {
+                throw new IllegalStateException("Shot " + shot + " of " + shots + " resulted in " + result);
+            }
+        }
+        if (((shots - 1) & 1) != record.getWinner()) {
+            throw new IllegalStateException("Recorded winner " + record.getWinner() + " did not take the last shot");
+        }
+        return players;
+    }
+
+    /**
+     * Get a fleet of the recorded ship sizes, named like the standard fleet if it is the standard fleet.
+     */
+    private static List<Battleship> fleetOf(RecordView record) {
+        List<Battleship> standard = Player.standardFleet();
+        boolean isStandard = standard.size() == record.getShips();
+        for (int ship = 0; isStandard && ship < record.getShips(); ship++) {
+            isStandard = standard.get(ship).getSize() == record.sizeOf(ship);
+        }
+        if (isStandard) {
+            return standard;
+        }
+
+        List<Battleship> fleet = new ArrayList<>();
+        for (int ship = 0; ship < record.getShips(); ship++) {
+            fleet.add(new Battleship("Ship " + (ship + 1), record.sizeOf(ship)));
+        }
+        return fleet;
+    }
+
+    /**
+     * Scan the records of a directory, replay every game and print a summary.
+     *
+     * @param args the directory of the segments, and "--scan" to only read the records without replaying them.
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "records");
+        boolean replay = !(args.length > 1 && args[1].equals("--scan"));
+
+        long[] totals = new long[4];
+        long start = System.nanoTime();
+        long games;
+        int corrupt;
+        try (RecordReader reader = new RecordReader(directory)) {
+            games = reader.scan(record -> {
+                totals[record.getWinner()]++;
+                totals[2] += record.getShotCount();
+                if (replay) {
+                    try {
+                        replay(record);
+                    } catch (IllegalStateException e) {
+                        totals[3]++;
+                    }
+                }
+            });
+            corrupt = reader.getCorrupt();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d games, first player %.2f%%, %.2f shots per game%n",
+                games, 100.0 * totals[0] / Math.max(games, 1), (double) totals[2] / Math.max(games, 1));
+        if (replay) {
+            System.out.println(totals[3] + " games did not replay to the recorded outcome");
+        }
+        if (corrupt > 0) {
+            System.out.println(corrupt + " segments end with a torn or corrupted record, which was skipped");
+        }
+        System.out.printf("%s in %.3f s, %.0f games/sec%n", replay ? "Replayed" : "Scanned",
+                seconds, games / seconds);
+    }
+}
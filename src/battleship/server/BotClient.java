@@ -0,0 +1,146 @@
+package battleship.server;
+
+import battleship.ai.ProbabilityShooter;
+import battleship.data.Battleship;
+import battleship.data.Board;
+import battleship.data.Coordinate;
+import battleship.data.Player;
+import battleship.data.ShotResult;
+import battleship.sim.FleetGenerator;
+import battleship.sim.ShootingStrategy;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays many matches against a {@link GameServer} at once, with bots on both sides, to load test it locally.
+ */
+public class BotClient {
+
+    /* Places the bots' fleets. */
+    private static final FleetGenerator FLEETS = new FleetGenerator();
+
+    /**
+     * Play a single match on a new connection.
+     *
+     * @param address of the server.
+     * @param port    of the server.
+     * @param name    of the bot.
+     * @param random  the source of randomness of the bot.
+     * @return the last line sent by the server: WIN, LOSE or ABANDONED.
+     * @throws IOException if the connection failed.
+     */
+    public static String play(InetAddress address, int port, String name, SplittableRandom random)
+            throws IOException {
+        try (Socket socket = new Socket(address, port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+
+            /* The bot's own fleet, placed up front, and its view of the opponent's field. */
+            Player self = new Player(name);
+            FLEETS.place(self, random);
+            Board view = new Board();
+            ShootingStrategy shooter = new ProbabilityShooter();
+            int nextShip = 0;
+
+            send(out, "NAME " + name);
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("PLACE")) {
+                    Battleship battleship = self.getBattleships().get(nextShip++);
+                    send(out, battleship.getCord1() + " " + battleship.getCord2());
+                } else if (line.equals("TURN")) {
+                    send(out, Coordinate.of(shooter.nextShot(view, random)).toString());
+                } else if (line.startsWith("RESULT ")) {
+                    String[] parts = line.split(" ");
+                    int index = Coordinate.parseIndex(parts[1]);
+                    ShotResult result = ShotResult.valueOf(parts[2]);
+                    view.record(index, result != ShotResult.MISS);
+                    shooter.onShotResult(index, result);
+                } else if (line.equals("WIN") || line.equals("LOSE") || line.equals("ABANDONED")) {
+                    return line;
+                } else if (line.startsWith("ERROR")) {
+                    throw new IOException(name + " got " + line);
+                }
+            }
+            return "ABANDONED";
+        }
+    }
+
+    private static void send(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Play matches between bots against a server and print the throughput.
+     *
+     * @param args the number of matches, the maximum number of concurrent matches, then the port and the address of
+     *             the server. All are optional; without a port, a server is hosted in this process.
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int concurrent = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        InetAddress address = args.length > 3 ? InetAddress.getByName(args[3]) : InetAddress.getLoopbackAddress();
+
+        GameServer server = null;
+        int port;
+        if (args.length > 2) {
+            port = Integer.parseInt(args[2]);
+        } else {
+            server = new GameServer();
+            port = server.start(address, 0);
+        }
+
+        /* Each match takes two connections, bound them so both sides stay within the file descriptor limit. */
+        Semaphore connections = new Semaphore(2 * concurrent);
+        CountDownLatch done = new CountDownLatch(2 * matches);
+        /* Connections that failed, and bots whose match was abandoned, by either side. */
+        AtomicLong failures = new AtomicLong();
+        AtomicLong abandoned = new AtomicLong();
+        ExecutorService bots = GameServer.newConnectionExecutor();
+        long start = System.nanoTime();
+        for (int i = 0; i < 2 * matches; i++) {
+            String name = "bot" + i;
+            SplittableRandom random = new SplittableRandom(i);
+            connections.acquire();
+            bots.execute(() -> {
+                try {
+                    if (play(address, port, name, random).equals("ABANDONED")) {
+                        abandoned.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                } finally {
+                    connections.release();
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        bots.shutdown();
+
+        System.out.printf("%d matches in %.3f s, %.0f matches/sec%n", matches, seconds, matches / seconds);
+        System.out.printf("%d failed connections, %d bots in abandoned matches%n", failures.get(), abandoned.get());
+        if (server != null) {
+            System.out.println(server.getStats());
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package battleship.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fans the events of a match out to its spectators. The events of a step of the match are gathered, encoded once
+ * into a chunk of bytes and the same chunk is queued to every spectator, so the cost of an event does not grow with
+ * the number of spectators beyond a queue insertion each.
+ * <p>
+ * The owning match adds and seals the events under its lock, and offers the chunks and closes the broadcast when it
+ * delivers its replies, in the order it queued them.
+ */
+class Broadcast {
+
+    /* The spectators watching the match. */
+    private final List<Spectator> spectators = new CopyOnWriteArrayList<>();
+
+    /* The events of the current step, not published yet. */
+    private final StringBuilder pending = new StringBuilder();
+
+    /**
+     * Add a spectator, who was sent a snapshot of the match first.
+     */
+    void subscribe(Spectator spectator) {
+        spectators.add(spectator);
+    }
+
+    void unsubscribe(Spectator spectator) {
+        spectators.remove(spectator);
+    }
+
+    /**
+     * Add an event line to the current step.
+     */
+    void add(String line) {
+        pending.append(line).append('\n');
+    }
+
+    /**
+     * Encode the events of the current step, to offer them once they are on the disk.
+     *
+     * @return the chunk of the events, or null if there were none.
+     */
+    byte[] seal() {
+        if (pending.length() == 0) {
+            return null;
+        }
+        byte[] chunk = pending.toString().getBytes(StandardCharsets.UTF_8);
+        pending.setLength(0);
+        return chunk;
+    }
+
+    /**
+     * Queue a chunk of events to every spectator.
+     */
+    void offer(byte[] chunk) {
+        for (Spectator spectator : spectators) {
+            spectator.offer(chunk);
+        }
+    }
+
+    /**
+     * Drop the events of the current step without publishing them.
+     */
+    void discard() {
+        pending.setLength(0);
+    }
+
+    /**
+     * Let the spectators go once they have written the chunks offered to them.
+     */
+    void close() {
+        for (Spectator spectator : spectators) {
+            spectator.close();
+        }
+        spectators.clear();
+    }
+}
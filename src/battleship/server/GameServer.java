@@ -0,0 +1,363 @@
+package battleship.server;
+
+import battleship.journal.MatchJournal;
+import battleship.journal.MatchState;
+import battleship.metrics.Metrics;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many concurrent matches over TCP, pairing the players in the order they connect.
+ * <p>
+ * Each connection is served by its own thread: a virtual thread when the runtime has them (Java 21 and later),
+ * otherwise a platform thread from a cached pool. The protocol is line based and reuses the coordinates typed in
+ * the console (client lines are prefixed with C, server lines with S):
+ * <pre>
+ * C: NAME alice
+ * S: WAIT                         (until an opponent connects)
+ * S: START FIRST|SECOND bob
+ * S: MATCH 17 8731265120          (the match id and the token to resume it with)
+ * S: PLACE 5 Aircraft Carrier     (once per ship)
+ * C: A1 A5
+ * S: OK | ERROR &lt;PlacementResult&gt;  (an error asks for the same ship again)
+ * S: TURN                         (to the player whose turn it is)
+ * C: B7
+ * S: RESULT B7 MISS|HIT|SUNK|WIN [ship type]   (to the shooter)
+ * S: SHOT B7 MISS|HIT|SUNK|WIN [ship type]     (to the opponent)
+ * S: WIN | LOSE | ABANDONED
+ * </pre>
+ * With a {@link MatchJournal}, the matches in progress survive a restart of the server. A player reconnects to a
+ * restored match instead of sending its name:
+ * <pre>
+ * C: RESUME 17 8731265120
+ * S: RESUMED FIRST|SECOND bob     (or ERROR UNKNOWN_MATCH, and the connection is closed)
+ * S: SHIP A1 A5                   (once per ship placed so far)
+ * S: RESULT ... | SHOT ...        (once per shot taken so far)
+ * S: PLACE ... | TURN | WAIT      (the next move, if it is the player's)
+ * </pre>
+ * A restored match that is not resumed by both its players within {@link #RESUME_TIMEOUT_SECONDS} of the start of
+ * the server is abandoned.
+ * A spectator watches a match in progress instead, and only reads:
+ * <pre>
+ * C: WATCH 17
+ * S: WATCHING 17 alice bob        (or ERROR UNKNOWN_MATCH, and the connection is closed)
+ * S: VIEW 0|1|- ~~X~~M~~~~/...    (the next shooter and both fields as seen through the fog of war)
+ * S: SHOT 0|1 B7 MISS|HIT|SUNK|WIN [ship type]  (0 for the shots of alice)
+ * S: OVER alice | ABANDONED
+ * </pre>
+ * The shots are encoded once and shared by all the spectators of a match. A spectator who cannot read them as fast
+ * as they are taken is sent a new VIEW line in place of the shots they missed.
+ */
+public class GameServer {
+
+    /* Default port of the server. */
+    public static final int DEFAULT_PORT = 4242;
+
+    /* Time the players of the restored matches have to resume them, in seconds. */
+    public static final long RESUME_TIMEOUT_SECONDS = 600;
+
+    /* Where the turn latencies and match counts are recorded. */
+    private final TurnStats stats = new TurnStats();
+
+    /* Runs one task per connection. */
+    private final ExecutorService connections = newConnectionExecutor();
+
+    /* The connections that are open, to close them when the server stops. */
+    private final Set<Session> open = ConcurrentHashMap.newKeySet();
+
+    /* A player waiting for an opponent, guarded by this. */
+    private Session waiting;
+
+    /* Whether the server stopped, guarded by this. */
+    private boolean stopped;
+
+    /* Where the matches are journaled, null if they are not. */
+    private final MatchJournal journal;
+
+    /* Restored matches that are waiting for their players to resume them, by id. */
+    private final Map<Long, HostedMatch> restored = new ConcurrentHashMap<>();
+
+    /* The matches in progress, restored or not, by id. */
+    private final Map<Long, HostedMatch> live = new ConcurrentHashMap<>();
+
+    /* The id of the next match. */
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /* Draws the tokens the players resume their matches with. */
+    private final SecureRandom tokens = new SecureRandom();
+
+    /* Accepts the connections, null until the server starts. */
+    private ServerSocket serverSocket;
+
+    /* Abandons the restored matches that were not resumed in time, null if there were none. */
+    private ScheduledExecutorService expiry;
+
+    /**
+     * Create a server that does not journal its matches.
+     */
+    public GameServer() {
+        this(null);
+    }
+
+    /**
+     * Create a server that journals its matches, and restore the matches that were in progress in the journal.
+     *
+     * @param journal where the matches are journaled, or null to not journal them.
+     */
+    public GameServer(MatchJournal journal) {
+        this.journal = journal;
+        if (journal != null) {
+            for (MatchState state : journal.getRecovered()) {
+                HostedMatch match = HostedMatch.restore(state, stats, journal);
+                nextId.accumulateAndGet(match.getId() + 1, Math::max);
+                /* A match whose last journaled shot won it is over already, only its end was not journaled. */
+                if (track(match)) {
+                    restored.put(match.getId(), match);
+                }
+            }
+        }
+    }
+
+    /**
+     * Start listening on the passed address and accept connections on a background thread.
+     *
+     * @param address the address to listen on, such as the loopback or a LAN address.
+     * @param port    the port to listen on, 0 for any free port.
+     * @return the port the server listens on.
+     * @throws IOException if the server socket cannot be opened.
+     */
+    public int start(InetAddress address, int port) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(address, port), 4096);
+
+        Thread acceptor = new Thread(this::acceptLoop, "battleship-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        if (!restored.isEmpty()) {
+            expiry = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "battleship-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            expiry.schedule(this::expireRestored, RESUME_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Session session = new Session(this, socket);
+                open.add(session);
+                connections.execute(session);
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    /* Usually out of file descriptors, back off instead of spinning until connections close. */
+                    System.err.println("Could not accept a connection: " + e.getMessage());
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Pair the session with the waiting player, or make it wait for the next one.
+     */
+    void join(Session session) {
+        HostedMatch match;
+        synchronized (this) {
+            if (stopped) {
+                session.close();
+                return;
+            }
+            if (waiting == null) {
+                waiting = session;
+                session.send("WAIT");
+                session.flush();
+                return;
+            }
+            /* Bound to the match before the lock is released, so a player leaving from then on abandons it. */
+            long[] matchTokens = {tokens.nextLong(), tokens.nextLong()};
+            match = new HostedMatch(nextId.getAndIncrement(), waiting, session, matchTokens, stats, journal);
+            waiting.setMatch(match);
+            session.setMatch(match);
+            waiting = null;
+        }
+        track(match);
+        match.start();
+    }
+
+    /**
+     * Keep a match among the live ones, and among the restored ones if it is, until it is over.
+     *
+     * @return false if the match is already over.
+     */
+    private boolean track(HostedMatch match) {
+        live.put(match.getId(), match);
+        if (!match.onFinish(() -> {
+            live.remove(match.getId(), match);
+            restored.remove(match.getId(), match);
+        })) {
+            live.remove(match.getId(), match);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Find a match in progress, to watch it.
+     *
+     * @param id of the match.
+     * @return the match, or null if there is no such match in progress.
+     */
+    HostedMatch find(long id) {
+        return live.get(id);
+    }
+
+    /**
+     * Reconnect a player to a restored match.
+     *
+     * @param session the new connection of the player.
+     * @param id      of the match.
+     * @param token   the secret the player got when the match started.
+     * @return false if there is no such match waiting for this player.
+     */
+    boolean resume(Session session, long id, long token) {
+        HostedMatch match = restored.get(id);
+        if (match == null || !match.resume(session, token)) {
+            return false;
+        }
+        if (match.isConnected()) {
+            restored.remove(id, match);
+        }
+        return true;
+    }
+
+    /**
+     * Abandon the restored matches that are still waiting for a player, so they do not stay in progress forever.
+     */
+    private void expireRestored() {
+        for (HostedMatch match : restored.values()) {
+            match.expire();
+        }
+    }
+
+    /**
+     * Get the number of restored matches that are waiting for a player to resume them.
+     */
+    public int getRestored() {
+        return restored.size();
+    }
+
+    /**
+     * Forget a session that left before it was paired.
+     */
+    synchronized void leave(Session session) {
+        if (waiting == session) {
+            waiting = null;
+        }
+    }
+
+    /**
+     * Forget a connection that was closed.
+     */
+    void closed(Session session) {
+        open.remove(session);
+    }
+
+    public TurnStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Stop accepting connections and close the running ones. The matches in progress are not ended: they stay in
+     * progress in the journal, which is closed once their last moves are on the disk, to be restored on the next start.
+     */
+    public void stop() throws IOException {
+        serverSocket.close();
+        if (expiry != null) {
+            expiry.shutdownNow();
+        }
+        synchronized (this) {
+            stopped = true;
+        }
+        /* Suspend the matches first, so the players leaving as their connections close do not end them. */
+        for (HostedMatch match : live.values()) {
+            match.suspend();
+        }
+        for (Session session : open) {
+            session.close();
+        }
+        connections.shutdownNow();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Get an executor that runs each task on a new virtual thread if the runtime supports them,
+     * otherwise on a pooled platform thread.
+     */
+    static ExecutorService newConnectionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "battleship-session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Run a server until the process is killed, printing its statistics every few seconds.
+     *
+     * @param args the port and the address to listen on, and the directory of the journal, all optional.
+     *             The default is the loopback address, without a journal.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        InetAddress address = args.length > 1 ? InetAddress.getByName(args[1]) : InetAddress.getLoopbackAddress();
+
+        MatchJournal journal = null;
+        if (args.length > 2) {
+            long start = System.nanoTime();
+            journal = MatchJournal.open(Paths.get(args[2]), true, MatchJournal.DEFAULT_SNAPSHOT_EVENTS);
+            System.out.printf("Recovered %d matches in %.1f ms%n",
+                    journal.getRecovered().size(), (System.nanoTime() - start) / 1e6);
+        }
+
+        GameServer server = new GameServer(journal);
+        port = server.start(address, port);
+        System.out.println("Listening on " + address.getHostAddress() + ":" + port);
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> System.out.print(server.getStats() + System.lineSeparator()
+                + Metrics.snapshot()), 5, 5, TimeUnit.SECONDS);
+    }
+}
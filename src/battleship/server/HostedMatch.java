@@ -0,0 +1,633 @@
+package battleship.server;
+
+import battleship.data.Battleship;
+import battleship.data.Coordinate;
+import battleship.data.Field;
+import battleship.data.PlacementResult;
+import battleship.data.Player;
+import battleship.data.ShotResult;
+import battleship.journal.MatchJournal;
+import battleship.journal.MatchState;
+import battleship.metrics.Metrics;
+import battleship.metrics.PlacementRejectedEvent;
+import battleship.metrics.TurnEvent;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A match between two connected players, driven by the lines they send.
+ * Both sessions call into the match from their own threads, so the state of the match is guarded by its monitor.
+ * <p>
+ * With a journal, every placement and shot is journaled and the replies are only sent once the journal has it on
+ * the disk, a match whose moves cannot be journaled is closed without them. The replies are queued under the monitor
+ * and delivered once it is released, in the order they were queued, by whichever thread finds them queued: a thread
+ * waiting for the disk or writing to a slow connection never holds the monitor, and a virtual thread does not pin its
+ * carrier while the journal syncs. A match restored from the journal after a restart waits for its players to
+ * resume it.
+ * <p>
+ * Spectators may watch the match: they get the shots as the opponents do, and the fields as seen through the fog of
+ * war, never the ships that were not hit.
+ */
+class HostedMatch {
+
+    /* Identifies the match in the journal and when resuming it. */
+    private final long id;
+
+    /* The secrets the players resume the match with. */
+    private final long[] tokens;
+
+    /* The two sessions and their players, the first one takes the first shot. A session is null while its player
+     * has not resumed a restored match. */
+    private final Session[] sessions;
+    private final Player[] players;
+
+    /* Number of ships each player placed so far. */
+    private final int[] placed = new int[2];
+
+    /* Index of the player whose turn it is, -1 while the ships are being placed. */
+    private int turn = -1;
+
+    /* When the current player was asked for a shot, and the event of the turn. */
+    private long turnStart;
+    private TurnEvent turnEvent;
+
+    /* Whether the players were told about the match, a restored match was. */
+    private boolean started;
+
+    private boolean finished;
+
+    /* Where the latencies and match counts are recorded. */
+    private final TurnStats stats;
+
+    /* Where the moves are journaled, null if they are not. */
+    private final MatchJournal journal;
+
+    /* Sequence number of the last journaled event, whose replies wait for it to be on the disk. */
+    private long journaled;
+
+    /* Reports of all the shots of a restored match, replayed to the players resuming it. Null if not restored. */
+    private List<String> history;
+
+    /* Fans the shots out to the spectators. */
+    private final Broadcast broadcast = new Broadcast();
+
+    /* The last view of the fields sent to a spectator, null once a shot changed them. */
+    private byte[] view;
+
+    /* The line ending the match for the spectators, null while it goes on. */
+    private String ending;
+
+    /* Run once the match is over, such as to forget it in the server. */
+    private Runnable onFinish;
+
+    /* The lines to each player of the current step, not queued for delivery yet. */
+    private final List<List<String>> replies = Arrays.asList(new ArrayList<>(), new ArrayList<>());
+
+    /* What is left to deliver once the journal has the moves it answers on the disk, in order. */
+    private final ArrayDeque<Delivery> outbox = new ArrayDeque<>();
+
+    /* Whether a thread is delivering the outbox, so the other threads leave what they queued to it. */
+    private boolean delivering;
+
+    HostedMatch(long id, Session first, Session second, long[] tokens, TurnStats stats, MatchJournal journal) {
+        this.id = id;
+        this.tokens = tokens;
+        this.sessions = new Session[]{first, second};
+        this.players = new Player[]{new Player(first.getName()), new Player(second.getName())};
+        this.stats = stats;
+        this.journal = journal;
+    }
+
+    private HostedMatch(MatchState state, TurnStats stats, MatchJournal journal) {
+        this.id = state.getId();
+        this.tokens = new long[]{state.getToken(0), state.getToken(1)};
+        this.sessions = new Session[2];
+        this.players = new Player[]{new Player(state.getName(0)), new Player(state.getName(1))};
+        this.stats = stats;
+        this.journal = journal;
+        this.history = new ArrayList<>();
+        this.started = true;
+    }
+
+    /**
+     * Rebuild a match from its journaled state, by placing its ships and taking its shots again.
+     * Its players are disconnected until they resume it.
+     *
+     * @param state   the journaled state of the match.
+     * @param stats   where the latencies and match counts are recorded.
+     * @param journal where the next moves are journaled.
+     * @return the restored match.
+     */
+    static HostedMatch restore(MatchState state, TurnStats stats, MatchJournal journal) {
+        HostedMatch match = new HostedMatch(state, stats, journal);
+        stats.matchStarted();
+        for (int i = 0; i < 2; i++) {
+            List<Battleship> battleships = match.players[i].getBattleships();
+            for (int ship = 0; ship < state.getPlaced(i); ship++) {
+                match.players[i].placeShip(battleships.get(ship), state.headOf(i, ship), state.isVertical(i, ship));
+            }
+            match.placed[i] = state.getPlaced(i);
+        }
+
+        ShotResult result = null;
+        for (int shot = 0; shot < state.getShotCount(); shot++) {
+            int i = shot & 1;
+            result = match.players[i].fireAt(match.players[1 - i], state.shotAt(shot));
+            match.history.add(match.reportOf(i, state.shotAt(shot), result));
+        }
+
+        if (result == ShotResult.WIN) {
+            /* The server stopped before journaling the end of the match. */
+            match.finish();
+        } else if (match.allPlaced(0) && match.allPlaced(1)) {
+            match.askShot(state.getShotCount() & 1);
+        }
+        return match;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    /**
+     * Set what to run once the match is over, if it is not over yet.
+     *
+     * @return false if the match is already over.
+     */
+    synchronized boolean onFinish(Runnable action) {
+        onFinish = action;
+        return !finished;
+    }
+
+    /**
+     * Tell both players who they play against and ask them for their first ship, unless one of them left already.
+     */
+    void start() {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            started = true;
+            stats.matchStarted();
+            if (journal != null) {
+                journaled = journal.started(id, players[0].getName(), players[1].getName(), tokens[0], tokens[1]);
+            }
+            for (int i = 0; i < 2; i++) {
+                send(i, "START " + (i == 0 ? "FIRST " : "SECOND ") + players[1 - i].getName());
+                send(i, "MATCH " + id + " " + Long.toUnsignedString(tokens[i]));
+                askPlacement(i);
+            }
+            seal();
+        }
+        deliver();
+    }
+
+    /**
+     * Reconnect a player to a restored match: tell them the ships they placed and all the shots taken so far,
+     * then ask for their next move if it is theirs.
+     *
+     * @param session the new connection of the player.
+     * @param token   the secret the player got in the MATCH line.
+     * @return false if the token is wrong, the player already resumed the match or the match is over.
+     */
+    boolean resume(Session session, long token) {
+        synchronized (this) {
+            int i = token == tokens[0] ? 0 : token == tokens[1] ? 1 : -1;
+            if (finished || history == null || i == -1 || sessions[i] != null) {
+                return false;
+            }
+
+            sessions[i] = session;
+            session.setMatch(this);
+            send(i, "RESUMED " + (i == 0 ? "FIRST " : "SECOND ") + players[1 - i].getName());
+            for (int ship = 0; ship < placed[i]; ship++) {
+                Battleship battleship = players[i].getBattleships().get(ship);
+                send(i, "SHIP " + battleship.getCord1() + " " + battleship.getCord2());
+            }
+            for (int shot = 0; shot < history.size(); shot++) {
+                send(i, ((shot & 1) == i ? "RESULT " : "SHOT ") + history.get(shot));
+            }
+
+            if (!allPlaced(i)) {
+                askPlacement(i);
+            } else if (turn == -1) {
+                send(i, "WAIT");
+            } else if (turn == i) {
+                send(i, "TURN");
+            }
+            seal();
+        }
+        deliver();
+        return true;
+    }
+
+    /**
+     * Add a spectator to the match: they are sent the names of the players and the fields as seen through the fog
+     * of war, then every shot until the match is over.
+     *
+     * @param spectator the spectator.
+     * @return false if the match is over.
+     */
+    boolean watch(Spectator spectator) {
+        synchronized (this) {
+            if (finished) {
+                return false;
+            }
+            byte[] header = ("WATCHING " + id + " " + players[0].getName() + " " + players[1].getName() + "\n")
+                    .getBytes(StandardCharsets.UTF_8);
+            byte[] view = view();
+            byte[] snapshot = new byte[header.length + view.length];
+            System.arraycopy(header, 0, snapshot, 0, header.length);
+            System.arraycopy(view, 0, snapshot, header.length, view.length);
+            /* The spectator ignores the events queued before the snapshot, which already shows them. */
+            broadcast.subscribe(spectator);
+            queue(() -> spectator.resync(snapshot));
+        }
+        deliver();
+        return true;
+    }
+
+    /**
+     * Remove a spectator who left the match.
+     */
+    synchronized void unwatch(Spectator spectator) {
+        broadcast.unsubscribe(spectator);
+    }
+
+    /**
+     * Send a spectator who fell behind the fields as they are now, instead of the shots they missed. The snapshot is
+     * delivered in order with the shots, so the spectator gets the shots taken after it and none before.
+     */
+    void resync(Spectator spectator) {
+        synchronized (this) {
+            byte[] view = view();
+            if (ending != null) {
+                byte[] end = (ending + "\n").getBytes(StandardCharsets.UTF_8);
+                view = Arrays.copyOf(view, view.length + end.length);
+                System.arraycopy(end, 0, view, view.length - end.length, end.length);
+            }
+            byte[] snapshot = view;
+            queue(() -> spectator.resync(snapshot));
+        }
+        deliver();
+    }
+
+    /**
+     * Get the line "VIEW &lt;turn&gt; &lt;first field&gt; &lt;second field&gt;", encoded once per shot and shared by
+     * the spectators. The turn is the index of the next shooter, or - while the ships are placed, and the fields
+     * are their fog of war symbols row by row, the rows separated by '/'.
+     */
+    private byte[] view() {
+        if (view == null) {
+            StringBuilder line = new StringBuilder("VIEW ").append(turn == -1 ? "-" : Integer.toString(turn));
+            for (Player player : players) {
+                Field field = player.getField();
+                line.append(' ');
+                for (int row = 0; row < field.getRows(); row++) {
+                    if (row > 0) {
+                        line.append('/');
+                    }
+                    for (int col = 0; col < field.getCols(); col++) {
+                        line.append(field.fogSymbolAt(row, col));
+                    }
+                }
+            }
+            view = line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+        }
+        return view;
+    }
+
+    /**
+     * Returns whether both players are connected.
+     */
+    synchronized boolean isConnected() {
+        return sessions[0] != null && sessions[1] != null;
+    }
+
+    /**
+     * Handle a line sent by one of the players: a placement such as "A1 A5" or a shot such as "B7".
+     */
+    void handle(Session session, String line) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+
+            int i = session == sessions[0] ? 0 : 1;
+            if (!started) {
+                send(i, "ERROR NOT_STARTED");
+            } else if (!allPlaced(i)) {
+                place(i, line);
+            } else if (turn == -1) {
+                send(i, "ERROR WAIT");
+            } else if (turn != i) {
+                send(i, "ERROR NOT_YOUR_TURN");
+            } else {
+                shoot(i, line);
+            }
+            seal();
+        }
+        deliver();
+    }
+
+    private boolean allPlaced(int i) {
+        return placed[i] == players[i].getBattleships().size();
+    }
+
+    private void place(int i, String line) {
+        Battleship battleship = players[i].getBattleships().get(placed[i]);
+        String[] cords = line.split(" ");
+        PlacementResult result = cords.length == 2
+                ? players[i].placeShip(battleship, cords[0], cords[1])
+                : PlacementResult.IMPROPER_FORMAT;
+
+        if (result != PlacementResult.PLACED) {
+            PlacementRejectedEvent.rejected(battleship.getType(), result);
+            send(i, "ERROR " + result);
+            askPlacement(i);
+            return;
+        }
+
+        if (journal != null) {
+            journaled = journal.placed(id, i, Math.min(battleship.getCord1().getIndex(),
+                    battleship.getCord2().getIndex()), "vertical".equals(battleship.getOrientation()));
+        }
+        send(i, "OK");
+        if (++placed[i] < players[i].getBattleships().size()) {
+            askPlacement(i);
+        } else if (allPlaced(1 - i)) {
+            askShot(0);
+        } else {
+            send(i, "WAIT");
+        }
+    }
+
+    private void shoot(int i, String line) {
+        int target = Coordinate.parseIndex(line);
+        if (target == -1) {
+            send(i, "ERROR " + PlacementResult.IMPROPER_FORMAT);
+            send(i, "TURN");
+            return;
+        }
+
+        ShotResult result = players[i].fireAt(players[1 - i], target);
+        stats.turn(System.nanoTime() - turnStart);
+        Metrics.SHOTS.increment();
+        if (turnEvent.shouldCommit()) {
+            turnEvent.player = players[i].getName();
+            turnEvent.target = Coordinate.of(target).toString();
+            turnEvent.result = result.name();
+            turnEvent.commit();
+        }
+        if (journal != null) {
+            journaled = journal.shot(id, target);
+        }
+
+        String report = reportOf(i, target, result);
+        if (history != null) {
+            history.add(report);
+        }
+        send(i, "RESULT " + report);
+        send(1 - i, "SHOT " + report);
+        view = null;
+        broadcast.add("SHOT " + i + " " + report);
+
+        if (result == ShotResult.WIN) {
+            Metrics.GAMES.increment();
+            send(i, "WIN");
+            send(1 - i, "LOSE");
+            ending = "OVER " + players[i].getName();
+            broadcast.add(ending);
+            finish();
+        } else {
+            askShot(1 - i);
+        }
+    }
+
+    private String reportOf(int i, int target, ShotResult result) {
+        String report = Coordinate.of(target) + " " + result;
+        if (result == ShotResult.SUNK || result == ShotResult.WIN) {
+            report += " " + players[i].getLastSunk().getType();
+        }
+        return report;
+    }
+
+    private void askPlacement(int i) {
+        Battleship battleship = players[i].getBattleships().get(placed[i]);
+        send(i, "PLACE " + battleship.getSize() + " " + battleship.getType());
+    }
+
+    private void askShot(int i) {
+        turn = i;
+        view = null;
+        turnStart = System.nanoTime();
+        turnEvent = new TurnEvent();
+        turnEvent.begin();
+        send(i, "TURN");
+    }
+
+    /**
+     * Add a line to a player to the current step, dropped if the player has not resumed the match.
+     */
+    private void send(int i, String line) {
+        if (sessions[i] != null) {
+            replies.get(i).add(line);
+        }
+    }
+
+    /**
+     * End the match because one of the players left it.
+     */
+    void abandon(Session session) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+
+            send(session == sessions[0] ? 1 : 0, "ABANDONED");
+            ending = "ABANDONED";
+            broadcast.add(ending);
+            finish();
+        }
+        deliver();
+    }
+
+    /**
+     * End a restored match because a player did not resume it in time. A player who did is told it was abandoned.
+     */
+    void expire() {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+
+            send(0, "ABANDONED");
+            send(1, "ABANDONED");
+            ending = "ABANDONED";
+            broadcast.add(ending);
+            finish();
+        }
+        deliver();
+    }
+
+    /**
+     * End the match: the lines of the current step are queued, then the disconnection of everyone.
+     */
+    private void finish() {
+        finished = true;
+        /* A match left before it started was neither counted nor journaled. */
+        if (started) {
+            stats.matchFinished();
+            if (journal != null) {
+                journaled = journal.finished(id);
+            }
+        }
+        seal();
+        queue(this::disconnect);
+        if (onFinish != null) {
+            onFinish.run();
+        }
+    }
+
+    /**
+     * Stop the match without ending it, as the server stops: nothing is journaled, so the match is restored on the
+     * next start, and its players and spectators are disconnected without being told it is over.
+     */
+    synchronized void suspend() {
+        if (finished) {
+            return;
+        }
+
+        /* From then on the players leaving do not abandon the match. */
+        finished = true;
+        outbox.clear();
+        disconnect();
+    }
+
+    /**
+     * Let the spectators go and close the connections of the players. Only once the match is over, when the sessions
+     * no longer change, so it may run outside of the monitor.
+     */
+    private void disconnect() {
+        broadcast.close();
+        for (Session session : sessions) {
+            if (session != null) {
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * Queue the lines of the current step to the players and the spectators, to be delivered once the moves they
+     * answer are on the disk.
+     */
+    private void seal() {
+        for (int i = 0; i < 2; i++) {
+            List<String> lines = replies.get(i);
+            if (!lines.isEmpty()) {
+                Session session = sessions[i];
+                String[] sent = lines.toArray(new String[0]);
+                lines.clear();
+                queue(() -> {
+                    for (String line : sent) {
+                        session.send(line);
+                    }
+                    session.flush();
+                });
+            }
+        }
+        byte[] chunk = broadcast.seal();
+        if (chunk != null) {
+            queue(() -> broadcast.offer(chunk));
+        }
+    }
+
+    /**
+     * Queue an action behind everything journaled so far.
+     */
+    private void queue(Runnable action) {
+        outbox.add(new Delivery(journaled, action));
+    }
+
+    /**
+     * Run the queued actions once the moves they answer are on the disk, outside of the monitor. A thread finding
+     * another one delivering leaves its actions to it, so they run in the order they were queued.
+     */
+    private void deliver() {
+        while (true) {
+            Delivery[] batch;
+            synchronized (this) {
+                if (delivering || outbox.isEmpty()) {
+                    return;
+                }
+                delivering = true;
+                batch = outbox.toArray(new Delivery[0]);
+                outbox.clear();
+            }
+
+            IOException failure = null;
+            try {
+                long sequence = batch[batch.length - 1].sequence;
+                if (journal != null && sequence != 0) {
+                    journal.awaitDurable(sequence);
+                }
+                for (Delivery delivery : batch) {
+                    delivery.action.run();
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                synchronized (this) {
+                    delivering = false;
+                    if (failure != null) {
+                        System.err.println("Match " + id + " could not be journaled, aborting it: "
+                                + failure.getMessage());
+                        abort();
+                    }
+                }
+            }
+            if (failure != null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * End the match because its moves could not be journaled. What is queued is dropped rather than tell the
+     * players and spectators about moves that may be lost, and the players are disconnected.
+     */
+    private void abort() {
+        outbox.clear();
+        replies.get(0).clear();
+        replies.get(1).clear();
+        broadcast.discard();
+        if (!finished) {
+            finished = true;
+            stats.matchFinished();
+            if (onFinish != null) {
+                onFinish.run();
+            }
+        }
+        disconnect();
+    }
+
+    /**
+     * An action waiting for the journal, such as sending the replies of a step.
+     */
+    private static final class Delivery {
+
+        /* Sequence number of the last event journaled before the action was queued. */
+        private final long sequence;
+        private final Runnable action;
+
+        Delivery(long sequence, Runnable action) {
+            this.sequence = sequence;
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package battleship.server;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The connection of a single player or spectator to the server, served by its own thread.
+ */
+class Session implements Runnable {
+
+    /* The server the session belongs to. */
+    private final GameServer server;
+
+    /* The connection and its line based input and output. */
+    private final Socket socket;
+    private final BufferedReader in;
+    private final Writer out;
+
+    /* Longest name kept, longer names are cut. */
+    private static final int MAX_NAME = 64;
+
+    /* Name of the player, sent by the client. */
+    private String name;
+
+    /* The match the player was paired into, null while waiting for an opponent. */
+    private volatile HostedMatch match;
+
+    Session(GameServer server, Socket socket) throws IOException {
+        this.server = server;
+        this.socket = socket;
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void run() {
+        try {
+            String hello = in.readLine();
+            if (hello == null) {
+                return;
+            }
+            if (hello.startsWith("WATCH ")) {
+                watch(hello);
+                return;
+            }
+            if (hello.startsWith("RESUME ")) {
+                if (!resume(hello)) {
+                    send("ERROR UNKNOWN_MATCH");
+                    flush();
+                    return;
+                }
+            } else {
+                name = hello.startsWith("NAME ") ? hello.substring(5).trim() : "player";
+                if (name.length() > MAX_NAME) {
+                    name = name.substring(0, MAX_NAME);
+                }
+                server.join(this);
+            }
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                HostedMatch current = match;
+                if (current == null) {
+                    send("ERROR NOT_STARTED");
+                    flush();
+                } else {
+                    current.handle(this, line.trim());
+                }
+            }
+        } catch (IOException e) {
+            // The connection was closed, by the player or by the end of the match.
+        } finally {
+            HostedMatch current = match;
+            if (current != null) {
+                current.abandon(this);
+            } else {
+                server.leave(this);
+            }
+            close();
+            server.closed(this);
+        }
+    }
+
+    /**
+     * Reconnect to a restored match from a line such as "RESUME 17 8731265120".
+     */
+    private boolean resume(String line) {
+        String[] parts = line.split(" ");
+        try {
+            return parts.length == 3
+                    && server.resume(this, Long.parseLong(parts[1]), Long.parseUnsignedLong(parts[2]));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Watch a match from a line such as "WATCH 17", until it is over.
+     */
+    private void watch(String line) throws IOException {
+        HostedMatch watched;
+        try {
+            watched = server.find(Long.parseLong(line.substring(6).trim()));
+        } catch (NumberFormatException e) {
+            watched = null;
+        }
+
+        Spectator spectator = new Spectator();
+        if (watched == null || !watched.watch(spectator)) {
+            send("ERROR UNKNOWN_MATCH");
+            flush();
+            return;
+        }
+        try {
+            spectator.stream(watched, new BufferedOutputStream(socket.getOutputStream()));
+        } finally {
+            watched.unwatch(spectator);
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void setMatch(HostedMatch match) {
+        this.match = match;
+    }
+
+    /**
+     * Queue a line to the player, it is written on the next {@link #flush()}.
+     */
+    void send(String line) {
+        try {
+            out.write(line);
+            out.write('\n');
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed.
+        }
+    }
+}
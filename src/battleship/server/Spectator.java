@@ -0,0 +1,111 @@
+package battleship.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A read-only connection watching a match. The chunks of events fanned out by the match's {@link Broadcast} are
+ * queued here and written by the thread of the connection, in batches.
+ * <p>
+ * The queue is bounded: a spectator that falls {@link #MAX_PENDING} chunks behind has its queue dropped and is sent
+ * a snapshot of the match instead, so a slow spectator never holds more than a bounded number of chunks. Chunks are
+ * ignored while a snapshot is awaited, since it already shows their events.
+ */
+class Spectator {
+
+    /* Chunks a spectator may lag behind before they are dropped for a snapshot. */
+    static final int MAX_PENDING = 256;
+
+    /* Chunks not written yet, guarded by this. The chunks are shared with the other spectators, never modified. */
+    private final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+
+    /* Whether chunks were dropped, so the next thing to write is a snapshot. */
+    private boolean behind;
+
+    /* Whether the last snapshot asked for arrived, so the chunks offered follow it. */
+    private boolean synced;
+
+    /* Whether the match is over, so nothing is queued after the chunks already there. */
+    private boolean closed;
+
+    /**
+     * Queue a chunk of events, or drop the queue if the spectator is too far behind.
+     */
+    synchronized void offer(byte[] chunk) {
+        if (closed || behind || !synced) {
+            return;
+        }
+        if (queue.size() == MAX_PENDING) {
+            queue.clear();
+            behind = true;
+            synced = false;
+        } else {
+            queue.add(chunk);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Replace whatever is queued by a snapshot of the match, which the next events follow.
+     */
+    synchronized void resync(byte[] snapshot) {
+        queue.clear();
+        queue.add(snapshot);
+        behind = false;
+        synced = true;
+        notifyAll();
+    }
+
+    /**
+     * Stop queuing chunks, the ones already queued are still written.
+     */
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Write the queued chunks until the match is over, each batch of chunks with a single flush.
+     *
+     * @param match the watched match, asked for a snapshot when chunks were dropped.
+     * @param out   the output of the connection.
+     * @throws IOException if the connection was closed.
+     */
+    void stream(HostedMatch match, OutputStream out) throws IOException {
+        List<byte[]> batch = new ArrayList<>();
+        while (true) {
+            boolean resync;
+            synchronized (this) {
+                while (queue.isEmpty() && !behind && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (queue.isEmpty() && !behind) {
+                    return;
+                }
+                resync = behind;
+                /* The snapshot is asked for once, the chunks are ignored until it arrives. */
+                behind = false;
+                batch.addAll(queue);
+                queue.clear();
+            }
+
+            /* Taken outside of the lock of the spectator, the match locks itself before the spectator. */
+            if (resync) {
+                match.resync(this);
+                continue;
+            }
+            for (byte[] chunk : batch) {
+                out.write(chunk);
+            }
+            out.flush();
+            batch.clear();
+        }
+    }
+}
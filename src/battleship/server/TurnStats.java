@@ -0,0 +1,66 @@
+package battleship.server;
+
+import battleship.metrics.Histogram;
+import battleship.metrics.Metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free statistics of the hosted matches: match counts and a histogram of the turn latencies.
+ * <p>
+ * The latency of a turn runs from the moment the player is asked for a shot to the moment the result is sent back,
+ * so it includes the round trip and the player's thinking. Percentiles are reported as the upper bound of their
+ * {@link Histogram} bucket. Turns are also recorded in {@link Metrics#TURN_NANOS} for the whole process.
+ */
+public class TurnStats {
+
+    /* Number of matches started and finished. */
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+
+    /* Latencies of the turns of this server. */
+    private final Histogram latencies = new Histogram();
+
+    void matchStarted() {
+        started.incrementAndGet();
+    }
+
+    void matchFinished() {
+        finished.incrementAndGet();
+    }
+
+    /**
+     * Record the latency of a turn.
+     *
+     * @param nanos the latency in nanoseconds.
+     */
+    void turn(long nanos) {
+        latencies.record(nanos);
+        Metrics.TURN_NANOS.record(nanos);
+    }
+
+    public long getTurns() {
+        return latencies.getCount();
+    }
+
+    public long getFinished() {
+        return finished.get();
+    }
+
+    /**
+     * Get an upper bound of the passed percentile of the turn latencies.
+     *
+     * @param percentile in range (0, 100].
+     * @return the upper bound in nanoseconds, 0 if no turn was recorded.
+     */
+    public long percentileNanos(double percentile) {
+        return latencies.percentile(percentile);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("matches %d active, %d finished; turns %d, mean %.1f us, p50 <= %d us, p99 <= %d us",
+                started.get() - finished.get(), finished.get(), latencies.getCount(), latencies.getMean() / 1e3,
+                percentileNanos(50) / 1000, percentileNanos(99) / 1000);
+    }
+}
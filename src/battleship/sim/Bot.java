@@ -0,0 +1,48 @@
+package battleship.sim;
+
+import java.util.function.Supplier;
+
+/**
+ * A computer player made of a shooting strategy and a placement strategy.
+ */
+public class Bot {
+
+    /* Name of the bot, shown in the tournament report. */
+    private final String name;
+
+    /* Creates a fresh shooting strategy for each game. */
+    private final Supplier<? extends ShootingStrategy> shooter;
+
+    /* Places the bot's fleet at the start of each game. */
+    private final PlacementStrategy placement;
+
+    /**
+     * Create a bot by specifying its strategies.
+     *
+     * @param name      of the bot.
+     * @param shooter   creates the shooting strategy of a single game.
+     * @param placement the placement strategy of the bot.
+     */
+    public Bot(String name, Supplier<? extends ShootingStrategy> shooter, PlacementStrategy placement) {
+        this.name = name;
+        this.shooter = shooter;
+        this.placement = placement;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ShootingStrategy newShooter() {
+        return shooter.get();
+    }
+
+    public PlacementStrategy getPlacement() {
+        return placement;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
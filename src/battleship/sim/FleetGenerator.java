@@ -0,0 +1,243 @@
+package battleship.sim;
+
+import battleship.data.Battleship;
+import battleship.data.Board;
+import battleship.data.Field;
+import battleship.data.PlacementResult;
+import battleship.data.Player;
+import battleship.data.ShipPlacements;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates uniformly distributed legal fleets from the precomputed placements of each ship size.
+ * <p>
+ * Each ship draws one of all its placements uniformly and is checked by a single intersection of its cells against
+ * the halos of the ships drawn before it. On the first conflict the generator backtracks to the first ship and draws
+ * the whole fleet again. Restarting from the first ship, rather than redrawing only the conflicting one, is what
+ * keeps every legal fleet equally likely.
+ * <p>
+ * Fields other than the standard one have no placement tables: there each placement is drawn from its row, column and
+ * orientation, and checked against the ships drawn before it by comparing their extents, with the same restarts.
+ */
+public class FleetGenerator implements PlacementStrategy {
+
+    /* Restarts after which a fleet is deemed not to fit, far more than a fleet that fits ever needs. */
+    private static final int MAX_RESTARTS = 10_000_000;
+
+    /* Placement tables of the fleet's ships, largest ships first since they conflict the most. */
+    private final ShipPlacements[] tables;
+
+    /* For each ship of the fleet (in the player's order), its position in the tables. */
+    private final int[] order;
+
+    /* Whether the tables hold every ship of the fleet, which is not the case if a ship is longer than 10. */
+    private final boolean tabulated;
+
+    /* The placements drawn by each thread, reused from one fleet to the next since a generator is shared. */
+    private final ThreadLocal<int[]> drawn;
+
+    /**
+     * Create a generator for the standard fleet.
+     */
+    public FleetGenerator() {
+        this(Player.standardFleet());
+    }
+
+    /**
+     * Create a generator for the passed fleet.
+     *
+     * @param fleet the ships to place, in the order the player holds them.
+     */
+    public FleetGenerator(List<Battleship> fleet) {
+        tables = new ShipPlacements[fleet.size()];
+        order = new int[fleet.size()];
+        boolean tabulated = true;
+        for (int i = 0; i < fleet.size(); i++) {
+            /* Count the ships drawn before this one: the larger ones, and the equal ones earlier in the fleet. */
+            int size = fleet.get(i).getSize();
+            int rank = 0;
+            for (int j = 0; j < fleet.size(); j++) {
+                int other = fleet.get(j).getSize();
+                if (other > size || (other == size && j < i)) {
+                    rank++;
+                }
+            }
+            if (size > Board.SIZE) {
+                tabulated = false;
+            } else {
+                tables[rank] = ShipPlacements.ofSize(size);
+            }
+            order[i] = rank;
+        }
+        this.tabulated = tabulated;
+        this.drawn = ThreadLocal.withInitial(() -> new int[tables.length]);
+    }
+
+    /**
+     * Draw a legal fleet.
+     *
+     * @param random     the source of randomness.
+     * @param placements receives the drawn placement of each ship, in the order of the tables.
+     * @throws IllegalArgumentException if no legal fleet was drawn within {@link #MAX_RESTARTS} restarts.
+     */
+    public void sample(SplittableRandom random, int[] placements) {
+        draw:
+        for (int restarts = 0; restarts < MAX_RESTARTS; restarts++) {
+            long forbiddenLo = 0;
+            long forbiddenHi = 0;
+            for (int i = 0; i < tables.length; i++) {
+                ShipPlacements table = tables[i];
+                int id = random.nextInt(table.count);
+                if (((table.shipLo[id] & forbiddenLo) | (table.shipHi[id] & forbiddenHi)) != 0) {
+                    continue draw;
+                }
+
+                forbiddenLo |= table.haloLo[id];
+                forbiddenHi |= table.haloHi[id];
+                placements[i] = id;
+            }
+            return;
+        }
+        throw new IllegalArgumentException("The fleet does not fit on the field");
+    }
+
+    @Override
+    public void place(Player player, SplittableRandom random) {
+        if (!tabulated || !(player.getField() instanceof Board)) {
+            placeAnywhere(player, random);
+            return;
+        }
+
+        int[] placements = drawn.get();
+        sample(random, placements);
+        place(player, placements);
+    }
+
+    /**
+     * Place a fleet drawn by {@link #sample(SplittableRandom, int[])}, or otherwise legal, on a standard field.
+     *
+     * @param player     the player to place the ships of.
+     * @param placements the placement of each ship, in the order of the tables.
+     */
+    void place(Player player, int[] placements) {
+        List<Battleship> battleships = player.getBattleships();
+        for (int i = 0; i < battleships.size(); i++) {
+            ShipPlacements table = tables[order[i]];
+            int id = placements[order[i]];
+            PlacementResult result = player.placeShip(battleships.get(i), table.start[id], table.vertical[id]);
+            if (result != PlacementResult.PLACED) {
+                throw new IllegalStateException("Generated placement was rejected: " + result);
+            }
+        }
+    }
+
+    /**
+     * Get the placement table of a ship.
+     *
+     * @param rank the position of the ship in the tables, largest ships first.
+     */
+    ShipPlacements getTable(int rank) {
+        return tables[rank];
+    }
+
+    /**
+     * Get the position in the tables of a ship of the fleet.
+     *
+     * @param ship the position of the ship in the fleet.
+     */
+    int rankOf(int ship) {
+        return order[ship];
+    }
+
+    /**
+     * Draw a legal fleet on a field of any size and place it, see the class comment.
+     *
+     * @throws IllegalArgumentException if no legal fleet was drawn within {@link #MAX_RESTARTS} restarts.
+     */
+    private void placeAnywhere(Player player, SplittableRandom random) {
+        Field field = player.getField();
+        List<Battleship> battleships = player.getBattleships();
+        int ships = battleships.size();
+        int[] head = new int[ships];
+        boolean[] down = new boolean[ships];
+        /* Extents of the ships drawn so far: top row, left column, bottom row, right column. */
+        int[][] extent = new int[ships][4];
+
+        draw:
+        for (int restarts = 0; ; restarts++) {
+            if (restarts == MAX_RESTARTS) {
+                throw new IllegalArgumentException("The fleet does not fit on the field");
+            }
+            for (int i = 0; i < ships; i++) {
+                int rank = order[i];
+                int size = battleships.get(i).getSize();
+                if (!drawPlacement(field, size, random, extent[rank])) {
+                    throw new IllegalStateException("The " + battleships.get(i).getType() + " does not fit");
+                }
+                for (int j = 0; j < i; j++) {
+                    if (conflicts(extent[rank], extent[order[j]])) {
+                        continue draw;
+                    }
+                }
+                head[i] = field.cellOf(extent[rank][0], extent[rank][1]);
+                down[i] = extent[rank][2] != extent[rank][0];
+            }
+            break;
+        }
+
+        for (int i = 0; i < ships; i++) {
+            PlacementResult result = player.placeShip(battleships.get(i), head[i], down[i]);
+            if (result != PlacementResult.PLACED) {
+                throw new IllegalStateException("Generated placement was rejected: " + result);
+            }
+        }
+    }
+
+    /**
+     * Draw one of all the placements of a ship on the field uniformly.
+     *
+     * @param extent receives the top row, left column, bottom row and right column of the placement.
+     * @return false if the ship does not fit on the field in any orientation.
+     */
+    private static boolean drawPlacement(Field field, int size, SplittableRandom random, int[] extent) {
+        int rows = field.getRows();
+        int cols = field.getCols();
+        long across = cols >= size ? (long) rows * (cols - size + 1) : 0;
+        /* A ship of size 1 is the same cell in both orientations, count it once. */
+        long down = rows >= size && size > 1 ? (long) (rows - size + 1) * cols : 0;
+        if (across + down == 0) {
+            return false;
+        }
+
+        long id = random.nextLong(across + down);
+        if (id < across) {
+            extent[0] = (int) (id / (cols - size + 1));
+            extent[1] = (int) (id % (cols - size + 1));
+            extent[2] = extent[0];
+            extent[3] = extent[1] + size - 1;
+        } else {
+            id -= across;
+            extent[0] = (int) (id / cols);
+            extent[1] = (int) (id % cols);
+            extent[2] = extent[0] + size - 1;
+            extent[3] = extent[1];
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether two ships cross or touch each other. Ships only touching by a corner do not conflict.
+     */
+    private static boolean conflicts(int[] a, int[] b) {
+        int rowGap = Math.max(0, Math.max(a[0], b[0]) - Math.min(a[2], b[2]));
+        int colGap = Math.max(0, Math.max(a[1], b[1]) - Math.min(a[3], b[3]));
+        return rowGap + colGap <= 1;
+    }
+
+    @Override
+    public String toString() {
+        return "uniform";
+    }
+}
@@ -0,0 +1,373 @@
+package battleship.sim;
+
+import battleship.ai.ProbabilityShooter;
+import battleship.data.Battleship;
+import battleship.data.Coordinate;
+import battleship.data.GameConfig;
+import battleship.data.Player;
+import battleship.data.ShipPlacements;
+import battleship.data.ShotResult;
+import battleship.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Searches for placements of a fleet on the standard field that a reference shooting strategy needs the most shots
+ * to sink.
+ * <p>
+ * Each chain is a simulated annealing run: a step moves one ship, either to any placement or to one crossing a cell
+ * of the ship, and the move is kept if the fleet takes more shots to sink, or otherwise with a probability that
+ * shrinks as the temperature cools. The moves are checked against the halos of the other ships, so the fleets follow
+ * the rules of the console: ships neither cross nor touch each other. A fleet is evaluated by playing games of the
+ * reference shooter against it; the games of a chain share their seeds so two fleets are compared on the same shots.
+ * The chains run in parallel, then the best fleet of each one is evaluated again on games it was not tuned on.
+ * <p>
+ * Shooting at a fleet is half of a game, so the evaluations reuse a single player and strategy per chain rather
+ * than playing matches.
+ */
+public class FleetOptimizer {
+
+    /* Temperatures of the first and last step, in shots. */
+    private static final double START_TEMPERATURE = 2.0;
+    private static final double END_TEMPERATURE = 0.05;
+
+    /* Tries to move a ship to a placement that does not conflict with the others, before giving up the step. */
+    private static final int MOVE_TRIES = 16;
+
+    /* A shooter that does not sink the fleet within this many shots per cell keeps shooting the same cells. */
+    private static final int MAX_SHOTS_PER_CELL = 4;
+
+    /* The shooting strategy the fleets are hardened against. */
+    private final Bot reference;
+
+    /* The game the fleets are placed in, the placement tables of its fleet, and the names of the ships. */
+    private final GameConfig config;
+    private final FleetGenerator fleets;
+    private final List<Battleship> fleet;
+
+    private final long seed;
+    private final ForkJoinPool pool;
+
+    /* Number of games played by the last run, and how long it took. */
+    private final LongAdder games = new LongAdder();
+    private long elapsedNanos;
+
+    /**
+     * Create an optimizer.
+     *
+     * @param config    the game, whose field must be the standard one since only it has placement tables.
+     * @param reference the bot whose shooting strategy the fleets are hardened against.
+     * @param seed      the seed the chains and games are derived from.
+     * @param pool      the pool the chains run on.
+     */
+    public FleetOptimizer(GameConfig config, Bot reference, long seed, ForkJoinPool pool) {
+        if (!config.isStandardField()) {
+            throw new IllegalArgumentException("Fleets can only be optimized on the standard field");
+        }
+        this.config = config;
+        this.fleet = config.newFleet();
+        this.fleets = new FleetGenerator(fleet);
+        this.reference = reference;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    /**
+     * Run the chains and get the best fleet of each one.
+     *
+     * @param chains the number of annealing runs, usually a multiple of the parallelism of the pool.
+     * @param steps  the number of moves of each run.
+     * @param games  the number of games a fleet is evaluated on during a run, ten times as many are played to
+     *               evaluate the best fleet of the run.
+     * @return the best fleet of each chain, the one taking the most shots to sink first.
+     */
+    public List<Fleet> optimize(int chains, int steps, int games) {
+        this.games.reset();
+        long start = System.nanoTime();
+        List<Fleet> best = pool.submit(() -> IntStream.range(0, chains).parallel()
+                .mapToObj(chain -> anneal(chain, steps, games))
+                .sorted(Comparator.comparingDouble(Fleet::getShots).reversed())
+                .collect(Collectors.toList())).join();
+        elapsedNanos = System.nanoTime() - start;
+        return best;
+    }
+
+    /**
+     * Get the mean number of shots the reference shooter needs to sink uniformly drawn fleets, to compare the
+     * optimized fleets to.
+     *
+     * @param games the number of games, each against a new fleet.
+     */
+    public double baseline(int games) {
+        SplittableRandom random = new SplittableRandom(seed ^ 0x5DEECE66DL);
+        Evaluator evaluator = new Evaluator();
+        int[] placements = new int[fleet.size()];
+        long shots = 0;
+        for (int game = 0; game < games; game++) {
+            fleets.sample(random, placements);
+            shots += evaluator.sink(placements, random.split());
+        }
+        return (double) shots / games;
+    }
+
+    private Fleet anneal(int chain, int steps, int games) {
+        SplittableRandom random = new SplittableRandom(mix(seed + chain));
+        long[] seeds = random.longs(games).toArray();
+        Evaluator evaluator = new Evaluator();
+
+        int[] current = new int[fleet.size()];
+        fleets.sample(random, current);
+        double shots = evaluator.evaluate(current, seeds);
+        int[] best = current.clone();
+        double bestShots = shots;
+
+        int[] candidate = new int[current.length];
+        double cooling = Math.pow(END_TEMPERATURE / START_TEMPERATURE, 1.0 / Math.max(1, steps - 1));
+        double temperature = START_TEMPERATURE;
+        for (int step = 0; step < steps; step++, temperature *= cooling) {
+            System.arraycopy(current, 0, candidate, 0, current.length);
+            if (!move(candidate, random)) {
+                continue;
+            }
+            double candidateShots = evaluator.evaluate(candidate, seeds);
+            if (candidateShots >= shots || random.nextDouble() < Math.exp((candidateShots - shots) / temperature)) {
+                System.arraycopy(candidate, 0, current, 0, current.length);
+                shots = candidateShots;
+                if (shots > bestShots) {
+                    System.arraycopy(current, 0, best, 0, current.length);
+                    bestShots = shots;
+                }
+            }
+        }
+
+        /* The best fleet is partly the luckiest on the seeds of the chain, evaluate it on fresh games. */
+        long[] fresh = new SplittableRandom(mix(~seed - chain)).longs(10L * games).toArray();
+        return new Fleet(best, evaluator.evaluate(best, fresh));
+    }
+
+    /**
+     * Move a ship of the fleet to another placement that neither crosses nor touches the other ships.
+     *
+     * @param placements the placement of each ship in the order of the tables, changed in place.
+     * @return false if no such placement was found.
+     */
+    private boolean move(int[] placements, SplittableRandom random) {
+        int rank = random.nextInt(placements.length);
+        long forbiddenLo = 0;
+        long forbiddenHi = 0;
+        for (int other = 0; other < placements.length; other++) {
+            if (other != rank) {
+                ShipPlacements table = fleets.getTable(other);
+                forbiddenLo |= table.haloLo[placements[other]];
+                forbiddenHi |= table.haloHi[placements[other]];
+            }
+        }
+
+        ShipPlacements table = fleets.getTable(rank);
+        int current = placements[rank];
+        for (int tries = 0; tries < MOVE_TRIES; tries++) {
+            int id;
+            if (random.nextBoolean()) {
+                id = random.nextInt(table.count);
+            } else {
+                /* Slide or turn the ship around one of its cells. */
+                int cell = table.start[current] + random.nextInt(table.size) * table.stepOf(current);
+                int[] crossing = table.crossing[cell];
+                id = crossing[random.nextInt(crossing.length)];
+            }
+            if (id != current && ((table.shipLo[id] & forbiddenLo) | (table.shipHi[id] & forbiddenHi)) == 0) {
+                placements[rank] = id;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of games played by the last run.
+     */
+    public long getGames() {
+        return games.sum();
+    }
+
+    /**
+     * Get the elapsed time of the last run in seconds.
+     */
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1e9;
+    }
+
+    /**
+     * Get a well mixed seed from a number, so that neighbouring numbers get unrelated generators.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Plays the reference shooter against fleets, with a single player and strategy reset between games.
+     */
+    private final class Evaluator {
+
+        private final Player target = new Player("fleet", config);
+        private final Player shooter = new Player(reference.getName(), config);
+        private ShootingStrategy strategy = reference.newShooter();
+
+        /* Whether the player and strategy hold a game that was played. */
+        private boolean used;
+
+        /**
+         * Get the mean number of shots the reference shooter needs to sink a fleet.
+         *
+         * @param placements the placement of each ship in the order of the tables.
+         * @param seeds      the seed of each game.
+         */
+        double evaluate(int[] placements, long[] seeds) {
+            long shots = 0;
+            for (long gameSeed : seeds) {
+                shots += sink(placements, new SplittableRandom(gameSeed));
+            }
+            return (double) shots / seeds.length;
+        }
+
+        /**
+         * Play a single game against a fleet.
+         *
+         * @return the number of shots the reference shooter took to sink it.
+         */
+        int sink(int[] placements, SplittableRandom random) {
+            if (used) {
+                target.reset();
+                shooter.reset();
+                if (!strategy.reset()) {
+                    strategy = reference.newShooter();
+                }
+            }
+            used = true;
+            fleets.place(target, placements);
+
+            int maxShots = target.getField().getCells() * MAX_SHOTS_PER_CELL;
+            for (int shots = 1; shots <= maxShots; shots++) {
+                int index = strategy.nextShot(target.getField(), random);
+                ShotResult result = shooter.fireAt(target, index);
+                strategy.onShotResult(index, result);
+                if (result == ShotResult.WIN) {
+                    games.increment();
+                    Metrics.GAMES.increment();
+                    Metrics.SHOTS.add(shots);
+                    return shots;
+                }
+            }
+            throw new IllegalStateException(reference + " did not sink the fleet in " + maxShots + " shots");
+        }
+    }
+
+    /**
+     * A fleet found by the optimizer and the mean number of shots the reference shooter needs to sink it.
+     */
+    public final class Fleet {
+
+        /* The placement of each ship, in the order of the tables. */
+        private final int[] placements;
+
+        private final double shots;
+
+        private Fleet(int[] placements, double shots) {
+            this.placements = placements;
+            this.shots = shots;
+        }
+
+        public double getShots() {
+            return shots;
+        }
+
+        /**
+         * Place the fleet on the standard field of a player.
+         */
+        public void placeOn(Player player) {
+            fleets.place(player, placements);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format("%.2f shots:", shots));
+            for (int ship = 0; ship < fleet.size(); ship++) {
+                ShipPlacements table = fleets.getTable(fleets.rankOf(ship));
+                int id = placements[fleets.rankOf(ship)];
+                int tail = table.start[id] + (table.size - 1) * table.stepOf(id);
+                text.append(' ').append(fleet.get(ship).getType()).append(' ')
+                        .append(Coordinate.of(table.start[id])).append(' ').append(Coordinate.of(tail))
+                        .append(ship < fleet.size() - 1 ? "," : "");
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * Get a placement strategy drawing one of the passed fleets uniformly for each game.
+     *
+     * @param found the fleets, such as the best ones returned by {@link #optimize(int, int, int)}.
+     */
+    public static PlacementStrategy drawingFrom(List<Fleet> found) {
+        List<Fleet> choices = new ArrayList<>(found);
+        return new PlacementStrategy() {
+            @Override
+            public void place(Player player, SplittableRandom random) {
+                choices.get(random.nextInt(choices.size())).placeOn(player);
+            }
+
+            @Override
+            public String toString() {
+                return "hardened";
+            }
+        };
+    }
+
+    /**
+     * Harden fleets against one of the built-in shooters.
+     *
+     * @param args the shooter (probability, hunt-target or random), the number of chains, the steps of each chain,
+     *             the games a fleet is evaluated on and the seed, all optional.
+     */
+    public static void main(String[] args) {
+        String shooter = args.length > 0 ? args[0] : "probability";
+        int chains = args.length > 1 ? Integer.parseInt(args[1]) : ForkJoinPool.commonPool().getParallelism();
+        int steps = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+
+        Bot reference;
+        switch (shooter) {
+            case "random":
+                reference = new Bot(shooter, RandomShooter::new, null);
+                break;
+            case "hunt-target":
+                reference = new Bot(shooter, HuntTargetShooter::new, null);
+                break;
+            case "probability":
+                reference = new Bot(shooter, () -> new ProbabilityShooter(Player.standardFleet()), null);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shooter " + shooter);
+        }
+
+        FleetOptimizer optimizer = new FleetOptimizer(GameConfig.STANDARD, reference, seed, ForkJoinPool.commonPool());
+        List<Fleet> best = optimizer.optimize(chains, steps, games);
+        for (Fleet fleet : best) {
+            System.out.println(fleet);
+        }
+        System.out.printf("%d games in %.3f s, %.0f games/sec on %d threads%n", optimizer.getGames(),
+                optimizer.getElapsedSeconds(), optimizer.getGames() / optimizer.getElapsedSeconds(),
+                ForkJoinPool.commonPool().getParallelism());
+        System.out.printf("Uniform fleets take %.2f shots%n", optimizer.baseline(10 * games));
+    }
+}
@@ -0,0 +1,108 @@
+package battleship.sim;
+
+import battleship.data.GameConfig;
+import battleship.data.Player;
+import battleship.data.SalvoReport;
+import battleship.record.GameRecord;
+
+/**
+ * The players, shooting strategies, salvo buffers and record of the games between two bots, reset rather than
+ * created again for each game. A simulation worker keeps one context per pair of bots, so once its first game was
+ * played the next ones do not allocate.
+ * <p>
+ * A context is not thread safe: it plays a single game at a time.
+ */
+public class GameContext {
+
+    /* The two bots, each one playing with the player and shooting strategy of the same index. */
+    private final Bot[] bots;
+    private final Player[] players;
+    private final ShootingStrategy[] shooters;
+
+    /* The cells of a salvo, one per ship, and its report. */
+    private final int[] salvo;
+    private final SalvoReport salvoReport = new SalvoReport();
+
+    /* Gets the outcomes of the games, null if nobody listens. */
+    private GameListener listener;
+
+    /* The record of the game being played, created on first use. */
+    private GameRecord record;
+
+    /* Whether the players hold a game that was played, so they must be reset before the next one. */
+    private boolean used;
+
+    /**
+     * Create a context for the games of two bots.
+     *
+     * @param bot1   one of the bots.
+     * @param bot2   the other bot.
+     * @param config the dimensions of the field and the fleet of every game.
+     */
+    public GameContext(Bot bot1, Bot bot2, GameConfig config) {
+        bots = new Bot[]{bot1, bot2};
+        players = new Player[]{new Player(bot1.getName(), config), new Player(bot2.getName(), config)};
+        shooters = new ShootingStrategy[]{bot1.newShooter(), bot2.newShooter()};
+        salvo = new int[players[0].getBattleships().size()];
+    }
+
+    /**
+     * Reset the players and shooting strategies for the next game. A strategy that cannot be reset is replaced.
+     */
+    void reset() {
+        if (!used) {
+            used = true;
+            return;
+        }
+        for (int i = 0; i < 2; i++) {
+            players[i].reset();
+            if (!shooters[i].reset()) {
+                shooters[i] = bots[i].newShooter();
+            }
+        }
+    }
+
+    /**
+     * Send the outcomes of the next games to a listener, such as {@link GameStats}.
+     *
+     * @param listener gets the outcomes, or null to stop listening.
+     */
+    public void listenTo(GameListener listener) {
+        this.listener = listener;
+    }
+
+    GameListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Get the record of the next game, cleared from the last one.
+     */
+    public GameRecord record() {
+        if (record == null) {
+            record = new GameRecord();
+        }
+        record.clear();
+        return record;
+    }
+
+    int[] getSalvo() {
+        return salvo;
+    }
+
+    SalvoReport getSalvoReport() {
+        return salvoReport;
+    }
+
+    Bot getBot(int i) {
+        return bots[i];
+    }
+
+    Player getPlayer(int i) {
+        return players[i];
+    }
+
+    ShootingStrategy getShooter(int i) {
+        return shooters[i];
+    }
+}
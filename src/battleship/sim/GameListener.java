@@ -0,0 +1,41 @@
+package battleship.sim;
+
+import battleship.data.Battleship;
+import battleship.data.Player;
+import battleship.data.ShotResult;
+
+/**
+ * Receives the outcomes of a game while it is played, so statistics can be gathered without keeping the games.
+ * The players are numbered 0 for the one who takes the first shot and 1 for the other.
+ */
+public interface GameListener {
+
+    /**
+     * Get notified that a player placed all its ships.
+     *
+     * @param player the number of the player.
+     * @param placed the player, its battleships hold their coordinates.
+     */
+    default void placed(int player, Player placed) {
+    }
+
+    /**
+     * Get notified of a shot.
+     *
+     * @param player the number of the player who took the shot.
+     * @param index  the index of the cell that was shot.
+     * @param result of the shot.
+     * @param sunk   the battleship the shot sank, or null if it did not sink one.
+     */
+    default void shot(int player, int index, ShotResult result, Battleship sunk) {
+    }
+
+    /**
+     * Get notified of the end of the game.
+     *
+     * @param winner the number of the player who won.
+     * @param shots  the number of shots the winner took.
+     */
+    default void finished(int winner, int shots) {
+    }
+}
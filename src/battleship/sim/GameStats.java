@@ -0,0 +1,232 @@
+package battleship.sim;
+
+import battleship.data.Battleship;
+import battleship.data.Coordinate;
+import battleship.data.Field;
+import battleship.data.GameConfig;
+import battleship.data.Player;
+import battleship.data.ShotResult;
+
+import java.util.List;
+
+/**
+ * Statistics of many games, aggregated while they are played and without keeping them: the shots to win, the cells
+ * of the first hits and of the sinking shots, the cells each ship of the fleet is placed on and the advantage of
+ * the player who takes the first shot.
+ * <p>
+ * Every count is a primitive array indexed by cell or by number of shots. Instances are filled by a single thread,
+ * through {@link GameListener}, and then merged like {@link PairResult}s. Since every worker holds arrays the size of
+ * the field for each ship, statistics are only gathered on fields that are not sparse.
+ */
+public class GameStats implements GameListener {
+
+    /* Fields with more cells than this have no statistics, the same limit as the dense fields. */
+    public static final int MAX_CELLS = Field.DENSE_LIMIT;
+
+    /* Number of columns of the field, to name the cells. */
+    private final int cols;
+
+    /* Type of each ship of the fleet, in the order the players hold them. */
+    private final String[] types;
+
+    /* Number of games and of games won by the player who took the first shot. */
+    private long games, starterWins;
+
+    /* Number of games won in each number of shots of the winner. The last entry counts the longer games too. */
+    private final long[] shotsToWin;
+
+    /* For each cell, the number of first hits of a player in a game, and the number of sinking shots. */
+    private final long[] firstHits, sinks;
+
+    /* For each ship of the fleet then each cell, the number of games the ship was placed on the cell. */
+    private final long[][] placements;
+
+    /* Whether each player of the game being played hit a ship already. */
+    private final boolean[] hit = new boolean[2];
+
+    /**
+     * Create empty statistics of the games of a configuration.
+     *
+     * @param config the dimensions of the field and the fleet.
+     * @throws IllegalArgumentException if the field has more than {@link #MAX_CELLS} cells.
+     */
+    public GameStats(GameConfig config) {
+        if ((long) config.getRows() * config.getCols() > MAX_CELLS) {
+            throw new IllegalArgumentException("Statistics are only gathered on fields of at most " + MAX_CELLS
+                    + " cells");
+        }
+        cols = config.getCols();
+        List<Battleship> fleet = config.newFleet();
+        types = new String[fleet.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = fleet.get(i).getType();
+        }
+
+        int cells = config.getRows() * cols;
+        shotsToWin = new long[cells + 1];
+        firstHits = new long[cells];
+        sinks = new long[cells];
+        placements = new long[types.length][cells];
+    }
+
+    @Override
+    public void placed(int player, Player placed) {
+        List<Battleship> battleships = placed.getBattleships();
+        for (int ship = 0; ship < battleships.size(); ship++) {
+            Battleship battleship = battleships.get(ship);
+            Coordinate cord1 = battleship.getCord1();
+            Coordinate cord2 = battleship.getCord2();
+            for (int row = Math.min(cord1.getRow(), cord2.getRow()); row <= Math.max(cord1.getRow(), cord2.getRow());
+                 row++) {
+                for (int col = Math.min(cord1.getCol(), cord2.getCol());
+                     col <= Math.max(cord1.getCol(), cord2.getCol()); col++) {
+                    placements[ship][row * cols + col]++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void shot(int player, int index, ShotResult result, Battleship sunk) {
+        if (result != ShotResult.MISS && !hit[player]) {
+            hit[player] = true;
+            firstHits[index]++;
+        }
+        if (sunk != null) {
+            sinks[index]++;
+        }
+    }
+
+    @Override
+    public void finished(int winner, int shots) {
+        games++;
+        if (winner == 0) {
+            starterWins++;
+        }
+        shotsToWin[Math.min(shots, shotsToWin.length - 1)]++;
+        hit[0] = false;
+        hit[1] = false;
+    }
+
+    /**
+     * Add the statistics collected by another thread for games of the same configuration.
+     */
+    void merge(GameStats other) {
+        games += other.games;
+        starterWins += other.starterWins;
+        add(shotsToWin, other.shotsToWin);
+        add(firstHits, other.firstHits);
+        add(sinks, other.sinks);
+        for (int ship = 0; ship < placements.length; ship++) {
+            add(placements[ship], other.placements[ship]);
+        }
+    }
+
+    private static void add(long[] counts, long[] other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other[i];
+        }
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Get the share of the games won by the player who took the first shot, 0 if no game was played.
+     */
+    public double getStarterAdvantage() {
+        return games == 0 ? 0 : (double) starterWins / games;
+    }
+
+    /**
+     * Get the smallest number of shots within which the passed percentile of the games were won.
+     *
+     * @param percentile in range (0, 100].
+     * @return the number of shots, 0 if no game was played.
+     */
+    public int shotsToWin(double percentile) {
+        long rank = (long) Math.ceil(games * percentile / 100);
+        long seen = 0;
+        for (int shots = 0; shots < shotsToWin.length; shots++) {
+            seen += shotsToWin[shots];
+            if (seen >= rank && seen > 0) {
+                return shots;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get the number of games won in exactly the passed number of shots of the winner.
+     */
+    public long getGamesWonIn(int shots) {
+        return shots < shotsToWin.length ? shotsToWin[shots] : 0;
+    }
+
+    /**
+     * Get the number of first hits of a player in a game on a cell.
+     */
+    public long getFirstHits(int index) {
+        return firstHits[index];
+    }
+
+    /**
+     * Get the number of ships sunk by a shot on a cell.
+     */
+    public long getSinks(int index) {
+        return sinks[index];
+    }
+
+    /**
+     * Get the number of fleets in which a ship was placed on a cell.
+     *
+     * @param ship  the position of the ship in the fleet.
+     * @param index of the cell.
+     */
+    public long getPlacements(int ship, int index) {
+        return placements[ship][index];
+    }
+
+    /**
+     * Get a printable summary: the shots to win, the starter advantage, the hottest cells of the first hits and of
+     * the sinks, and the favourite cell of each ship.
+     */
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%d games, starter won %.2f%%, shots to win p50 %d p90 %d p99 %d%n",
+                games, 100 * getStarterAdvantage(), shotsToWin(50), shotsToWin(90), shotsToWin(99)));
+        report.append("first hits:").append(hottest(firstHits)).append('\n');
+        report.append("sinks:").append(hottest(sinks)).append('\n');
+        for (int ship = 0; ship < types.length; ship++) {
+            report.append(types[ship]).append(':').append(hottest(placements[ship])).append('\n');
+        }
+        return report.toString();
+    }
+
+    /**
+     * Get the five cells with the highest counts and their share of the total, such as " E5 3.10%".
+     */
+    private String hottest(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+
+        StringBuilder text = new StringBuilder();
+        boolean[] listed = new boolean[counts.length];
+        for (int n = 0; n < 5 && n < counts.length; n++) {
+            int best = -1;
+            for (int cell = 0; cell < counts.length; cell++) {
+                if (!listed[cell] && (best == -1 || counts[cell] > counts[best])) {
+                    best = cell;
+                }
+            }
+            listed[best] = true;
+            text.append(String.format(" %s%d %.2f%%", Coordinate.rowName(best / cols), best % cols + 1,
+                    total == 0 ? 0.0 : 100.0 * counts[best] / total));
+        }
+        return text.toString();
+    }
+}
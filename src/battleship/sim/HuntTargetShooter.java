@@ -0,0 +1,149 @@
+package battleship.sim;
+
+import battleship.data.Field;
+import battleship.data.ShotResult;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Hunts on a checkerboard pattern, since the smallest ship always covers a cell of each colour,
+ * and once a ship is hit, targets the cells around the hits until it is sunk.
+ */
+public class HuntTargetShooter implements ShootingStrategy {
+
+    /* Sparse fields are hunted by drawing random checkerboard cells this many times before scanning. */
+    private static final int HUNT_DRAWS = 64;
+
+    /* Cells queued around the hits, used as a stack. */
+    private int[] targets = new int[64];
+    private int targetCount;
+
+    /* Hits on ships not sunk yet, used to find the cells of a ship once it is sunk. */
+    private int[] hits = new int[16];
+    private int hitCount;
+
+    /* Dimensions of the field being shot at, known from the first shot. */
+    private int rows, cols;
+
+    @Override
+    public int nextShot(Field target, SplittableRandom random) {
+        rows = target.getRows();
+        cols = target.getCols();
+        while (targetCount > 0) {
+            int index = targets[--targetCount];
+            if (!target.isShot(index)) {
+                return index;
+            }
+        }
+
+        int cells = target.getCells();
+        if (cells > Field.DENSE_LIMIT) {
+            for (int draw = 0; draw < HUNT_DRAWS; draw++) {
+                int index = random.nextInt(cells);
+                if (isCheckerboard(index) && !target.isShot(index)) {
+                    return index;
+                }
+            }
+        }
+
+        /* Hunt mode: a random checkerboard cell, or any cell once the checkerboard is exhausted. */
+        int start = random.nextInt(cells);
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < cells; i++) {
+                int index = (int) (((long) start + i) % cells);
+                if ((pass == 1 || isCheckerboard(index)) && !target.isShot(index)) {
+                    return index;
+                }
+            }
+        }
+        throw new IllegalStateException("No cell left to shoot at");
+    }
+
+    private boolean isCheckerboard(int index) {
+        return (index / cols + index % cols) % 2 == 0;
+    }
+
+    @Override
+    public void onShotResult(int index, ShotResult result) {
+        switch (result) {
+            case HIT:
+                if (hitCount == hits.length) {
+                    hits = Arrays.copyOf(hits, hits.length * 2);
+                }
+                hits[hitCount++] = index;
+                if (targetCount + 4 > targets.length) {
+                    targets = Arrays.copyOf(targets, targets.length * 2);
+                }
+                int row = index / cols;
+                int col = index % cols;
+                if (row > 0) {
+                    targets[targetCount++] = index - cols;
+                }
+                if (row < rows - 1) {
+                    targets[targetCount++] = index + cols;
+                }
+                if (col > 0) {
+                    targets[targetCount++] = index - 1;
+                }
+                if (col < cols - 1) {
+                    targets[targetCount++] = index + 1;
+                }
+                break;
+
+            case SUNK:
+                sink(index);
+                break;
+        }
+    }
+
+    /**
+     * Drop the targets around a sunk ship. Ships never touch, so they are known to be empty, while the targets
+     * around the hits on another ship, such as one hit by the same salvo, are kept.
+     *
+     * @param index the cell whose shot sank the ship.
+     */
+    private void sink(int index) {
+        if (hitCount == hits.length) {
+            hits = Arrays.copyOf(hits, hits.length * 2);
+        }
+        hits[hitCount++] = index;
+
+        /* The open hits connected to the sunk cell are the rest of the ship, gathered at the end of the hits. */
+        int ship = hitCount - 1;
+        for (int i = hitCount - 1; i >= ship; i--) {
+            for (int j = ship - 1; j >= 0; j--) {
+                if (isNeighbour(hits[i], hits[j])) {
+                    int cell = hits[j];
+                    hits[j] = hits[--ship];
+                    hits[ship] = cell;
+                }
+            }
+        }
+
+        int kept = 0;
+        for (int t = 0; t < targetCount; t++) {
+            boolean around = false;
+            for (int i = ship; i < hitCount && !around; i++) {
+                around = isNeighbour(targets[t], hits[i]);
+            }
+            if (!around) {
+                targets[kept++] = targets[t];
+            }
+        }
+        targetCount = kept;
+        hitCount = ship;
+    }
+
+    private boolean isNeighbour(int a, int b) {
+        int distance = Math.abs(a - b);
+        return distance == cols || distance == 1 && a / cols == b / cols;
+    }
+
+    @Override
+    public boolean reset() {
+        targetCount = 0;
+        hitCount = 0;
+        return true;
+    }
+}
@@ -0,0 +1,225 @@
+package battleship.sim;
+
+import battleship.data.GameConfig;
+import battleship.data.Player;
+import battleship.data.SalvoReport;
+import battleship.data.ShotResult;
+import battleship.metrics.Metrics;
+import battleship.record.GameRecord;
+
+import java.util.SplittableRandom;
+
+/**
+ * Plays a single headless game between two bots.
+ */
+public class Match {
+
+    /* A bot that does not win within this many shots per cell keeps shooting the same cells. */
+    private static final int MAX_SHOTS_PER_CELL = 4;
+
+    private Match() {
+    }
+
+    /**
+     * Play a game between two bots, the first bot takes the first shot.
+     *
+     * @param first  the bot that starts.
+     * @param second the other bot.
+     * @param random the source of randomness of this game, shared by both bots.
+     * @return the number of shots the winner took, positive if the first bot won and negative if the second did.
+     */
+    public static int play(Bot first, Bot second, SplittableRandom random) {
+        return play(first, second, GameConfig.STANDARD, random);
+    }
+
+    /**
+     * Play a game of the passed configuration between two bots, the first bot takes the first shot.
+     *
+     * @param first  the bot that starts.
+     * @param second the other bot.
+     * @param config the dimensions of the field and the fleet.
+     * @param random the source of randomness of this game, shared by both bots.
+     * @return the number of shots the winner took, positive if the first bot won and negative if the second did.
+     */
+    public static int play(Bot first, Bot second, GameConfig config, SplittableRandom random) {
+        return play(first, second, config, random, null);
+    }
+
+    /**
+     * Play a game of the passed configuration between two bots and record it.
+     *
+     * @param first  the bot that starts.
+     * @param second the other bot.
+     * @param config the dimensions of the field and the fleet.
+     * @param random the source of randomness of this game, shared by both bots.
+     * @param record receives the fleets and the shots of the game, or null to not record it.
+     * @return the number of shots the winner took, positive if the first bot won and negative if the second did.
+     */
+    public static int play(Bot first, Bot second, GameConfig config, SplittableRandom random, GameRecord record) {
+        Player player1 = new Player(first.getName(), config);
+        Player player2 = new Player(second.getName(), config);
+        return play(first, player1, first.newShooter(), second, player2, second.newShooter(), random, record, null);
+    }
+
+    /**
+     * Play a game between the two bots of a context, reusing its players and shooting strategies. The listener of
+     * the context, if any, gets the outcomes of the game.
+     *
+     * @param context      the bots of the game and what they play with, reset before the game.
+     * @param secondStarts whether the second bot of the context takes the first shot instead of the first bot.
+     * @param random       the source of randomness of this game, shared by both bots.
+     * @param record       receives the fleets and the shots of the game, or null to not record it.
+     * @return the number of shots the winner took, positive if the bot that started won and negative otherwise.
+     */
+    public static int play(GameContext context, boolean secondStarts, SplittableRandom random, GameRecord record) {
+        context.reset();
+        int first = secondStarts ? 1 : 0;
+        int second = 1 - first;
+        return play(context.getBot(first), context.getPlayer(first), context.getShooter(first),
+                context.getBot(second), context.getPlayer(second), context.getShooter(second), random, record,
+                context.getListener());
+    }
+
+    private static int play(Bot first, Player player1, ShootingStrategy shooter1,
+                            Bot second, Player player2, ShootingStrategy shooter2,
+                            SplittableRandom random, GameRecord record, GameListener listener) {
+        place(first, player1, second, player2, random, listener);
+        if (record != null) {
+            record.placed(player1);
+            record.placed(player2);
+        }
+
+        long maxShots = (long) player1.getField().getCells() * MAX_SHOTS_PER_CELL;
+        for (int shots = 1; shots <= maxShots; shots++) {
+            if (takeShot(0, player1, shooter1, player2, random, record, listener) == ShotResult.WIN) {
+                finished(2 * shots - 1, 0, shots, listener);
+                return shots;
+            }
+            if (takeShot(1, player2, shooter2, player1, random, record, listener) == ShotResult.WIN) {
+                finished(2 * shots, 1, shots, listener);
+                return -shots;
+            }
+        }
+        throw new IllegalStateException(first + " vs " + second + " did not finish in " + maxShots + " shots");
+    }
+
+    /**
+     * Play a game of the Salvo variant between two bots: in each turn, a bot fires one shot per ship it has afloat,
+     * all at once. The first bot fires the first salvo.
+     *
+     * @param first  the bot that starts.
+     * @param second the other bot.
+     * @param config the dimensions of the field and the fleet.
+     * @param random the source of randomness of this game, shared by both bots.
+     * @return the number of shots the winner fired, positive if the first bot won and negative if the second did.
+     */
+    public static int playSalvo(Bot first, Bot second, GameConfig config, SplittableRandom random) {
+        Player player1 = new Player(first.getName(), config);
+        Player player2 = new Player(second.getName(), config);
+        return playSalvo(first, player1, first.newShooter(), second, player2, second.newShooter(), random,
+                new int[player1.getBattleships().size()], new SalvoReport(), null);
+    }
+
+    /**
+     * Play a game of the Salvo variant between the two bots of a context, reusing its players and shooting
+     * strategies. The listener of the context, if any, gets the outcomes of the game.
+     *
+     * @param context      the bots of the game and what they play with, reset before the game.
+     * @param secondStarts whether the second bot of the context fires the first salvo instead of the first bot.
+     * @param random       the source of randomness of this game, shared by both bots.
+     * @return the number of shots the winner fired, positive if the bot that started won and negative otherwise.
+     */
+    public static int playSalvo(GameContext context, boolean secondStarts, SplittableRandom random) {
+        context.reset();
+        int first = secondStarts ? 1 : 0;
+        int second = 1 - first;
+        return playSalvo(context.getBot(first), context.getPlayer(first), context.getShooter(first),
+                context.getBot(second), context.getPlayer(second), context.getShooter(second), random,
+                context.getSalvo(), context.getSalvoReport(), context.getListener());
+    }
+
+    private static int playSalvo(Bot first, Player player1, ShootingStrategy shooter1,
+                                 Bot second, Player player2, ShootingStrategy shooter2,
+                                 SplittableRandom random, int[] salvo, SalvoReport report,
+                                 GameListener listener) {
+        place(first, player1, second, player2, random, listener);
+
+        int shots1 = 0;
+        int shots2 = 0;
+        long maxSalvos = (long) player1.getField().getCells() * MAX_SHOTS_PER_CELL;
+        for (int salvos = 1; salvos <= maxSalvos; salvos++) {
+            shots1 += fireSalvo(0, player1, shooter1, player2, random, salvo, report, listener);
+            if (report.isWin()) {
+                finished(shots1 + shots2, 0, shots1, listener);
+                return shots1;
+            }
+            shots2 += fireSalvo(1, player2, shooter2, player1, random, salvo, report, listener);
+            if (report.isWin()) {
+                finished(shots1 + shots2, 1, shots2, listener);
+                return -shots2;
+            }
+        }
+        throw new IllegalStateException(first + " vs " + second + " did not finish in " + maxSalvos + " salvos");
+    }
+
+    /**
+     * Fire the salvo of a player, one shot per ship it has afloat.
+     *
+     * @return the number of shots of the salvo.
+     */
+    private static int fireSalvo(int number, Player player, ShootingStrategy shooter, Player opponent,
+                                 SplittableRandom random, int[] salvo, SalvoReport report, GameListener listener) {
+        int count = shooter.nextSalvo(opponent.getField(), player.getAfloat(), random, salvo);
+        player.fireSalvo(opponent, salvo, count, report);
+        shooter.onSalvoResult(salvo, report);
+        if (listener != null) {
+            for (int i = 0, sunk = 0; i < count; i++) {
+                ShotResult result = report.getResult(i);
+                boolean sinking = result == ShotResult.SUNK || result == ShotResult.WIN;
+                listener.shot(number, salvo[i], result, sinking ? report.getSunk().get(sunk++) : null);
+            }
+        }
+        return count;
+    }
+
+    private static void place(Bot first, Player player1, Bot second, Player player2, SplittableRandom random,
+                              GameListener listener) {
+        first.getPlacement().place(player1, random);
+        second.getPlacement().place(player2, random);
+        if (listener != null) {
+            listener.placed(0, player1);
+            listener.placed(1, player2);
+        }
+    }
+
+    /**
+     * Count a finished game and its shots, once per game rather than once per shot.
+     *
+     * @param shots       the shots of both players.
+     * @param winner      the number of the player who won, 0 for the one who started.
+     * @param winnerShots the shots of the winner.
+     * @param listener    gets the end of the game, or null.
+     */
+    private static void finished(int shots, int winner, int winnerShots, GameListener listener) {
+        Metrics.GAMES.increment();
+        Metrics.SHOTS.add(shots);
+        if (listener != null) {
+            listener.finished(winner, winnerShots);
+        }
+    }
+
+    private static ShotResult takeShot(int number, Player player, ShootingStrategy shooter, Player opponent,
+                                       SplittableRandom random, GameRecord record, GameListener listener) {
+        int index = shooter.nextShot(opponent.getField(), random);
+        if (record != null) {
+            record.shot(index);
+        }
+        ShotResult result = player.fireAt(opponent, index);
+        shooter.onShotResult(index, result);
+        if (listener != null) {
+            boolean sinking = result == ShotResult.SUNK || result == ShotResult.WIN;
+            listener.shot(number, index, result, sinking ? player.getLastSunk() : null);
+        }
+        return result;
+    }
+}
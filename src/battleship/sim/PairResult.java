@@ -0,0 +1,113 @@
+package battleship.sim;
+
+/**
+ * Aggregated results of the games played between two bots. Instances are filled by a single thread and then merged.
+ */
+public class PairResult {
+
+    /* The two bots of the pair. */
+    private final Bot bot1, bot2;
+
+    /* Number of games played and won by each bot. */
+    private long games, wins1, wins2;
+
+    /* Number of games won by the bot that took the first shot. */
+    private long starterWins;
+
+    /* Sum of the shots the winners took, to get the average length of a game. */
+    private long winnerShots;
+
+    /* Statistics of the games gathered while they are played, null if they are not. */
+    private final GameStats stats;
+
+    PairResult(Bot bot1, Bot bot2) {
+        this(bot1, bot2, null);
+    }
+
+    PairResult(Bot bot1, Bot bot2, GameStats stats) {
+        this.bot1 = bot1;
+        this.bot2 = bot2;
+        this.stats = stats;
+    }
+
+    /**
+     * Add the result of a single game.
+     *
+     * @param bot1Started whether bot1 took the first shot.
+     * @param result      the result of {@link Match#play}, positive if the starting bot won.
+     */
+    void add(boolean bot1Started, int result) {
+        boolean starterWon = result > 0;
+        games++;
+        if (starterWon == bot1Started) {
+            wins1++;
+        } else {
+            wins2++;
+        }
+        if (starterWon) {
+            starterWins++;
+        }
+        winnerShots += Math.abs(result);
+    }
+
+    /**
+     * Add the results collected by another thread for the same pair.
+     */
+    void merge(PairResult other) {
+        games += other.games;
+        wins1 += other.wins1;
+        wins2 += other.wins2;
+        starterWins += other.starterWins;
+        winnerShots += other.winnerShots;
+        if (stats != null) {
+            stats.merge(other.stats);
+        }
+    }
+
+    public Bot getBot1() {
+        return bot1;
+    }
+
+    public Bot getBot2() {
+        return bot2;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getWins1() {
+        return wins1;
+    }
+
+    public long getWins2() {
+        return wins2;
+    }
+
+    public long getStarterWins() {
+        return starterWins;
+    }
+
+    /**
+     * Get the statistics of the games of the pair.
+     *
+     * @return the statistics, or null if they were not gathered.
+     */
+    public GameStats getStats() {
+        return stats;
+    }
+
+    public double getAverageWinnerShots() {
+        return games == 0 ? 0 : (double) winnerShots / games;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s vs %s: %d games, %s %.2f%%, %s %.2f%%, starter %.2f%%, %.2f shots per win",
+                bot1, bot2, games,
+                bot1, 100.0 * wins1 / games,
+                bot2, 100.0 * wins2 / games,
+                100.0 * starterWins / games,
+                getAverageWinnerShots());
+    }
+}
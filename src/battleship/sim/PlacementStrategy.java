@@ -0,0 +1,19 @@
+package battleship.sim;
+
+import battleship.data.Player;
+
+import java.util.SplittableRandom;
+
+/**
+ * Places the fleet of a bot on its field.
+ */
+public interface PlacementStrategy {
+
+    /**
+     * Place all the battleships of the player on its field.
+     *
+     * @param player the player to place the ships of.
+     * @param random the source of randomness of this game.
+     */
+    void place(Player player, SplittableRandom random);
+}
@@ -0,0 +1,71 @@
+package battleship.sim;
+
+import battleship.data.Field;
+
+import java.util.SplittableRandom;
+
+/**
+ * Shoots at a random cell that was not shot yet.
+ */
+public class RandomShooter implements ShootingStrategy {
+
+    /* Cells that were not shot yet, the first "remaining" entries are live. Created on the first shot, and left
+     * null on sparse fields, where drawing cells until an unshot one comes up is cheaper than listing them. */
+    private int[] cells;
+    private int remaining;
+
+    @Override
+    public int nextShot(Field target, SplittableRandom random) {
+        int count = target.getCells();
+        if (count > Field.DENSE_LIMIT) {
+            int index;
+            do {
+                index = random.nextInt(count);
+            } while (target.isShot(index));
+            return index;
+        }
+
+        if (cells == null) {
+            cells = new int[count];
+            for (int i = 0; i < count; i++) {
+                cells[i] = i;
+            }
+            remaining = count;
+        }
+
+        /* Swap the picked cell out of the live part so it is never picked again. */
+        int pick = random.nextInt(remaining);
+        int index = cells[pick];
+        cells[pick] = cells[--remaining];
+        cells[remaining] = index;
+        return index;
+    }
+
+    /**
+     * On dense fields, never picks a cell twice, so the salvo only comes short of the requested shots when fewer cells
+     * are left. Sparse fields do not list the cells picked, so they fall back to the default, which skips duplicates.
+     */
+    @Override
+    public int nextSalvo(Field target, int shots, SplittableRandom random, int[] picked) {
+        if (target.getCells() > Field.DENSE_LIMIT) {
+            return ShootingStrategy.super.nextSalvo(target, shots, random, picked);
+        }
+        int count = 0;
+        while (count < shots && (cells == null || remaining > 0)) {
+            picked[count++] = nextShot(target, random);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean reset() {
+        /* Put the cells back in order, so a game plays the same whatever game came before it. */
+        if (cells != null) {
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = i;
+            }
+            remaining = cells.length;
+        }
+        return true;
+    }
+}
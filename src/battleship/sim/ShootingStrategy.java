@@ -0,0 +1,82 @@
+package battleship.sim;
+
+import battleship.data.Field;
+import battleship.data.SalvoReport;
+import battleship.data.ShotResult;
+
+import java.util.SplittableRandom;
+
+/**
+ * Picks the cells a bot shoots at. A strategy instance plays a single game at a time, so it may keep state between
+ * shots.
+ */
+public interface ShootingStrategy {
+
+    /**
+     * Pick the next cell to shoot at.
+     *
+     * @param target the opponent's field. Only the hits and misses may be looked at, as a player would see them
+     *               through the fog of war.
+     * @param random the source of randomness of this game.
+     * @return the index of the cell to shoot at, see {@link Field#cellOf(int, int)}.
+     */
+    int nextShot(Field target, SplittableRandom random);
+
+    /**
+     * Get notified of the result of the last shot.
+     *
+     * @param index  the index of the cell that was shot.
+     * @param result of the shot.
+     */
+    default void onShotResult(int index, ShotResult result) {
+    }
+
+    /**
+     * Pick the cells of a salvo, fired at once before the result of any of them is known.
+     * <p>
+     * The default picks them one by one with {@link #nextShot(Field, SplittableRandom)} and drops the cells picked
+     * twice, a strategy whose pick only depends on the field should override it.
+     *
+     * @param target the opponent's field, as seen through the fog of war.
+     * @param shots  the number of shots of the salvo.
+     * @param random the source of randomness of this game.
+     * @param cells  receives the indexes of the cells to shoot at.
+     * @return the number of cells picked, from 1 to shots.
+     */
+    default int nextSalvo(Field target, int shots, SplittableRandom random, int[] cells) {
+        int count = 0;
+        for (int pick = 0; count < shots && pick < 4 * shots; pick++) {
+            int index = nextShot(target, random);
+            boolean picked = false;
+            for (int i = 0; i < count && !picked; i++) {
+                picked = cells[i] == index;
+            }
+            if (!picked) {
+                cells[count++] = index;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get notified of the results of the last salvo. The default passes them to
+     * {@link #onShotResult(int, ShotResult)} in the order of the shots.
+     *
+     * @param cells  the indexes of the cells that were shot.
+     * @param report the results of the shots.
+     */
+    default void onSalvoResult(int[] cells, SalvoReport report) {
+        for (int i = 0; i < report.getShots(); i++) {
+            onShotResult(cells[i], report.getResult(i));
+        }
+    }
+
+    /**
+     * Forget the game played so far, so this instance can play another game against a field of the same size.
+     *
+     * @return false if the strategy cannot be reset, then a new one must be created for the next game.
+     */
+    default boolean reset() {
+        return false;
+    }
+}
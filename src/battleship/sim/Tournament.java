@@ -0,0 +1,281 @@
+package battleship.sim;
+
+import battleship.ai.EndgameSolver;
+import battleship.ai.ProbabilityShooter;
+import battleship.data.GameConfig;
+import battleship.metrics.Metrics;
+import battleship.record.GameRecord;
+import battleship.record.RecordWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Plays many headless games between every pair of bots, spread across all the cores.
+ * <p>
+ * Each game gets its own random generator seeded from the tournament seed, the pair and the game number,
+ * so the results are the same whatever the number of threads and however the games are scheduled.
+ */
+public class Tournament {
+
+    /* Most nodes searched by a solve of the endgame bot. */
+    private static final long ENDGAME_NODES = 500;
+
+    /* Annealing runs, steps of each run and games per evaluation of the fleets of the hardened bot. */
+    private static final int HARDENED_CHAINS = 8;
+    private static final int HARDENED_STEPS = 200;
+    private static final int HARDENED_GAMES = 100;
+
+    /* The bots taking part in the tournament. */
+    private final List<Bot> bots;
+
+    /* The dimensions of the field and the fleet of every game. */
+    private final GameConfig config;
+
+    /* The seed every game's random generator is derived from. */
+    private final long seed;
+
+    /* The pool the games are played on. */
+    private final ForkJoinPool pool;
+
+    /* Where the games are recorded, null to not record them. */
+    private RecordWriter records;
+
+    /* Whether the games are of the Salvo variant. */
+    private boolean salvo;
+
+    /* Whether statistics of the games are gathered while they are played. */
+    private boolean analyze;
+
+    /* Elapsed time of the last run. */
+    private long elapsedNanos;
+
+    /**
+     * Create a tournament that uses all the available cores.
+     *
+     * @param bots the bots taking part in the tournament.
+     * @param seed the seed every game's random generator is derived from.
+     */
+    public Tournament(List<Bot> bots, long seed) {
+        this(bots, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a tournament that plays its games on the passed pool.
+     *
+     * @param bots the bots taking part in the tournament.
+     * @param seed the seed every game's random generator is derived from.
+     * @param pool the pool the games are played on.
+     */
+    public Tournament(List<Bot> bots, long seed, ForkJoinPool pool) {
+        this(bots, GameConfig.STANDARD, seed, pool);
+    }
+
+    /**
+     * Create a tournament of games of the passed configuration, played on the passed pool.
+     *
+     * @param bots   the bots taking part in the tournament.
+     * @param config the dimensions of the field and the fleet of every game.
+     * @param seed   the seed every game's random generator is derived from.
+     * @param pool   the pool the games are played on.
+     */
+    public Tournament(List<Bot> bots, GameConfig config, long seed, ForkJoinPool pool) {
+        this.bots = bots;
+        this.config = config;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    /**
+     * Record every game of the next runs.
+     *
+     * @param records where the games are appended, or null to stop recording.
+     */
+    public void recordTo(RecordWriter records) {
+        if (records != null && salvo) {
+            throw new IllegalStateException("Salvo games cannot be recorded");
+        }
+        this.records = records;
+    }
+
+    /**
+     * Play the Salvo variant in the next runs, where each bot fires one shot per ship it has afloat in each turn.
+     * The shots per win of the results count every shot of the winner's salvos.
+     *
+     * @param salvo whether the games are of the Salvo variant.
+     * @throws IllegalStateException if the games are recorded, Salvo games cannot be.
+     */
+    public void playSalvo(boolean salvo) {
+        if (salvo && records != null) {
+            throw new IllegalStateException("Salvo games cannot be recorded");
+        }
+        this.salvo = salvo;
+    }
+
+    /**
+     * Gather statistics of the games of the next runs, see {@link GameStats}. Each worker fills statistics of its
+     * own, merged at the end of each pair, so the games are never kept.
+     *
+     * @param analyze whether to gather the statistics.
+     * @throws IllegalArgumentException if the field has more than {@link GameStats#MAX_CELLS} cells.
+     */
+    public void analyze(boolean analyze) {
+        if (analyze && (long) config.getRows() * config.getCols() > GameStats.MAX_CELLS) {
+            throw new IllegalArgumentException("Statistics are only gathered on fields of at most "
+                    + GameStats.MAX_CELLS + " cells");
+        }
+        this.analyze = analyze;
+    }
+
+    /**
+     * Play the passed number of games for every pair of bots. The bots of a pair take turns in starting the games.
+     *
+     * @param gamesPerPair the number of games each pair plays.
+     * @return the results of each pair.
+     */
+    public List<PairResult> run(int gamesPerPair) {
+        List<PairResult> results = new ArrayList<>();
+        long start = System.nanoTime();
+
+        int pair = 0;
+        for (int i = 0; i < bots.size(); i++) {
+            for (int j = i + 1; j < bots.size(); j++) {
+                results.add(runPair(pair++, bots.get(i), bots.get(j), gamesPerPair));
+            }
+        }
+
+        elapsedNanos = System.nanoTime() - start;
+        return results;
+    }
+
+    private PairResult runPair(int pair, Bot bot1, Bot bot2, int games) {
+        /* Each worker plays the games of the pair with its own players and strategies, reset between games. */
+        ThreadLocal<GameContext> contexts = ThreadLocal.withInitial(() -> new GameContext(bot1, bot2, config));
+        return pool.submit(() -> IntStream.range(0, games).parallel().collect(
+                () -> new PairResult(bot1, bot2, analyze ? new GameStats(config) : null),
+                (result, game) -> {
+                    SplittableRandom random = new SplittableRandom(gameSeed(pair, game));
+                    GameContext context = contexts.get();
+                    context.listenTo(result.getStats());
+                    GameRecord record = records == null ? null : context.record();
+                    boolean bot1Starts = game % 2 == 0;
+                    result.add(bot1Starts, salvo
+                            ? Match.playSalvo(context, !bot1Starts, random)
+                            : Match.play(context, !bot1Starts, random, record));
+                    if (record != null) {
+                        append(record);
+                    }
+                },
+                PairResult::merge)).join();
+    }
+
+    private void append(GameRecord record) {
+        try {
+            records.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the seed of a single game, mixed so that neighbouring games get unrelated generators.
+     */
+    private long gameSeed(int pair, int game) {
+        long z = seed + (((long) pair << 32) | game) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Get the elapsed time of the last run in seconds.
+     */
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1e9;
+    }
+
+    /**
+     * Get a printable report of the last run.
+     *
+     * @param results the results returned by {@link #run(int)}.
+     * @return the report, one line per pair followed by its statistics if they were gathered, then the throughput.
+     */
+    public String report(List<PairResult> results) {
+        StringBuilder report = new StringBuilder();
+        long games = 0;
+        for (PairResult result : results) {
+            report.append(result).append('\n');
+            if (result.getStats() != null) {
+                report.append(result.getStats());
+            }
+            games += result.getGames();
+        }
+        report.append(String.format("%d games in %.3f s, %.0f games/sec on %d threads",
+                games, getElapsedSeconds(), games / getElapsedSeconds(), pool.getParallelism()));
+        return report.toString();
+    }
+
+    /**
+     * Run a tournament between the built-in bots.
+     *
+     * @param args the number of games per pair, the seed, the field dimensions such as 20x30, the fleet such as
+     *             "Carrier:5,Destroyer:2" and the directory to record the games in, all optional.
+     *             See {@link GameConfig#parse(String, String)}. A --salvo argument anywhere plays the Salvo variant,
+     *             a --stats argument prints the statistics of the games of each pair, an --endgame argument
+     *             adds a probability bot that solves the endgames exactly, and a --hardened argument adds a
+     *             probability bot placing fleets hardened against the probability shooter, see {@link FleetOptimizer}.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean salvo = Arrays.asList(args).contains("--salvo");
+        boolean stats = Arrays.asList(args).contains("--stats");
+        boolean endgame = Arrays.asList(args).contains("--endgame");
+        boolean hardened = Arrays.asList(args).contains("--hardened");
+        args = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        GameConfig config = GameConfig.parse(args.length > 2 ? args[2] : null, args.length > 3 ? args[3] : null);
+
+        FleetGenerator fleets = new FleetGenerator(config.newFleet());
+        List<Bot> bots = new ArrayList<>();
+        bots.add(new Bot("random", RandomShooter::new, fleets));
+        bots.add(new Bot("hunt-target", HuntTargetShooter::new, fleets));
+        /* The probability shooter only knows the placements of the standard field. */
+        if (config.isStandardField()) {
+            Bot probability = new Bot("probability", () -> new ProbabilityShooter(config.newFleet()), fleets);
+            bots.add(probability);
+            if (endgame) {
+                /* Solves bounded by nodes rather than time, without a shared cache, so the shots are reproducible. */
+                EndgameSolver solver = new EndgameSolver(2, 32, ENDGAME_NODES, Long.MAX_VALUE, null);
+                bots.add(new Bot("endgame", () -> new ProbabilityShooter(config.newFleet(), solver), fleets));
+            }
+            if (hardened) {
+                /* A fixed number of chains, so the fleets found do not depend on the number of threads. */
+                FleetOptimizer optimizer = new FleetOptimizer(config, probability, seed, ForkJoinPool.commonPool());
+                PlacementStrategy placement = FleetOptimizer.drawingFrom(
+                        optimizer.optimize(HARDENED_CHAINS, HARDENED_STEPS, HARDENED_GAMES));
+                bots.add(new Bot("hardened", () -> new ProbabilityShooter(config.newFleet()), placement));
+            }
+        }
+
+        Tournament tournament = new Tournament(bots, config, seed, ForkJoinPool.commonPool());
+        tournament.playSalvo(salvo);
+        tournament.analyze(stats);
+        if (args.length > 4) {
+            try (RecordWriter records = new RecordWriter(Paths.get(args[4]))) {
+                tournament.recordTo(records);
+                System.out.println(tournament.report(tournament.run(games)));
+                System.out.println(records.getRecords() + " games recorded in " + args[4]);
+            }
+        } else {
+            System.out.println(tournament.report(tournament.run(games)));
+        }
+        System.out.print(Metrics.snapshot());
+    }
+}